@@ -18,22 +18,34 @@ package io.cdap.plugin.batch.aggregator;
 
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
+import io.cdap.plugin.batch.aggregator.function.NumericAggregateState;
 
 import java.io.Serializable;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * A class which represents the aggregation result of a group by aggregator.
  * This class is needed to have the schema since we don't have schema propagation in prepareRun if
- * schema is macro-enabled
+ * schema is macro-enabled.
+ * Numeric functions that support it keep their state in a single {@link NumericAggregateState} rather than as
+ * separate function objects.
  */
 public class AggregateResult implements Serializable {
   private final Schema inputSchema;
   private final Map<String, AggregateFunction> functions;
+  @Nullable
+  private final NumericAggregateState numericState;
 
   public AggregateResult(Schema inputSchema, Map<String, AggregateFunction> functions) {
+    this(inputSchema, functions, null);
+  }
+
+  public AggregateResult(Schema inputSchema, Map<String, AggregateFunction> functions,
+                         @Nullable NumericAggregateState numericState) {
     this.inputSchema = inputSchema;
     this.functions = functions;
+    this.numericState = numericState;
   }
 
   public Schema getInputSchema() {
@@ -43,4 +55,9 @@ public class AggregateResult implements Serializable {
   public Map<String, AggregateFunction> getFunctions() {
     return functions;
   }
+
+  @Nullable
+  public NumericAggregateState getNumericState() {
+    return numericState;
+  }
 }
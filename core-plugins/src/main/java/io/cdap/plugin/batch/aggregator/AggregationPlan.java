@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
+import io.cdap.plugin.batch.aggregator.function.NumericAggregateLayout;
+import io.cdap.plugin.batch.aggregator.function.NumericAggregateState;
+import io.cdap.plugin.batch.aggregator.function.NumericSlot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Group by aggregation compiled against a single input schema. Everything that only depends on the input schema
+ * (group key schema, output schema, the schema each aggregate function is created with) is resolved once here,
+ * instead of once per record or once per group.
+ *
+ * Numeric functions with a {@link NumericSlot} are laid out in a {@link NumericAggregateLayout}, so that their
+ * state is a single {@link NumericAggregateState} per group. The other functions are kept as
+ * {@link AggregateFunction} objects.
+ */
+final class AggregationPlan {
+  private final String[] groupByFields;
+  private final GroupByConfig.FunctionInfo[] functionInfos;
+  private final Schema[] functionFieldSchemas;
+  // index of each function in the numeric layout, -1 for functions that are kept as objects
+  private final int[] numericIndexes;
+  private final NumericAggregateLayout numericLayout;
+  private final Schema groupKeySchema;
+  private final Schema outputSchema;
+
+  private AggregationPlan(String[] groupByFields, GroupByConfig.FunctionInfo[] functionInfos,
+                          Schema[] functionFieldSchemas, int[] numericIndexes, NumericAggregateLayout numericLayout,
+                          Schema groupKeySchema, Schema outputSchema) {
+    this.groupByFields = groupByFields;
+    this.functionInfos = functionInfos;
+    this.functionFieldSchemas = functionFieldSchemas;
+    this.numericIndexes = numericIndexes;
+    this.numericLayout = numericLayout;
+    this.groupKeySchema = groupKeySchema;
+    this.outputSchema = outputSchema;
+  }
+
+  /**
+   * Compiles the plan for the given input schema.
+   *
+   * @param inputSchema schema of the records to aggregate
+   * @param groupByFields fields to group by
+   * @param functionInfos aggregates to compute
+   * @return the compiled plan
+   * @throws IllegalArgumentException if a group by field does not exist in the input schema
+   */
+  static AggregationPlan compile(Schema inputSchema, List<String> groupByFields,
+                                 List<GroupByConfig.FunctionInfo> functionInfos) {
+    List<Schema.Field> keyFields = new ArrayList<>(groupByFields.size());
+    for (String groupByField : groupByFields) {
+      Schema.Field field = inputSchema.getField(groupByField);
+      if (field == null) {
+        throw new IllegalArgumentException(String.format(
+          "Cannot group by field '%s' because it does not exist in input schema %s",
+          groupByField, inputSchema));
+      }
+      keyFields.add(field);
+    }
+
+    List<Schema.Field> outputFields = new ArrayList<>(groupByFields.size() + functionInfos.size());
+    outputFields.addAll(keyFields);
+    Schema[] functionFieldSchemas = new Schema[functionInfos.size()];
+    int[] numericIndexes = new int[functionInfos.size()];
+    List<NumericSlot> numericSlots = new ArrayList<>();
+    for (int i = 0; i < functionInfos.size(); i++) {
+      GroupByConfig.FunctionInfo functionInfo = functionInfos.get(i);
+      Schema.Field inputField = inputSchema.getField(functionInfo.getField());
+      functionFieldSchemas[i] = inputField == null ? null : inputField.getSchema();
+      // also validates the field type, which the numeric slots rely on
+      AggregateFunction aggregateFunction = functionInfo.getAggregateFunction(functionFieldSchemas[i]);
+      outputFields.add(Schema.Field.of(functionInfo.getName(), aggregateFunction.getOutputSchema()));
+
+      NumericSlot numericSlot = functionInfo.getNumericSlot(functionFieldSchemas[i]);
+      numericIndexes[i] = numericSlot == null ? -1 : numericSlots.size();
+      if (numericSlot != null) {
+        numericSlots.add(numericSlot);
+      }
+    }
+
+    return new AggregationPlan(groupByFields.toArray(new String[0]),
+                               functionInfos.toArray(new GroupByConfig.FunctionInfo[0]),
+                               functionFieldSchemas, numericIndexes, new NumericAggregateLayout(numericSlots),
+                               Schema.recordOf("group.key.schema", keyFields),
+                               Schema.recordOf(inputSchema.getRecordName() + ".agg", outputFields));
+  }
+
+  Schema getGroupKeySchema() {
+    return groupKeySchema;
+  }
+
+  Schema getOutputSchema() {
+    return outputSchema;
+  }
+
+  /**
+   * @return the group key of the given record
+   */
+  StructuredRecord getGroupKey(StructuredRecord record) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(groupKeySchema);
+    for (String groupByField : groupByFields) {
+      builder.set(groupByField, record.get(groupByField));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return a fresh aggregate value for the given input schema, with all functions initialized
+   */
+  AggregateResult createAggregate(Schema inputSchema) {
+    // size the map so that it never has to rehash
+    int numFunctions = functionInfos.length - numericLayout.size();
+    Map<String, AggregateFunction> functions = new HashMap<>(numFunctions * 4 / 3 + 1);
+    for (int i = 0; i < functionInfos.length; i++) {
+      if (numericIndexes[i] >= 0) {
+        continue;
+      }
+      AggregateFunction aggregateFunction = functionInfos[i].getAggregateFunction(functionFieldSchemas[i]);
+      aggregateFunction.initialize();
+      functions.put(functionInfos[i].getName(), aggregateFunction);
+    }
+    return new AggregateResult(inputSchema, functions, numericLayout.newState());
+  }
+
+  /**
+   * Merges the given record into the aggregate value.
+   */
+  void mergeValue(AggregateResult aggregate, StructuredRecord record) {
+    for (AggregateFunction aggregateFunction : aggregate.getFunctions().values()) {
+      aggregateFunction.mergeValue(record);
+    }
+    numericLayout.mergeValue(aggregate.getNumericState(), record);
+  }
+
+  /**
+   * Merges the second aggregate value into the first one.
+   */
+  @SuppressWarnings("unchecked")
+  void merge(AggregateResult aggregate, AggregateResult other) {
+    Map<String, AggregateFunction> otherFunctions = other.getFunctions();
+    for (Map.Entry<String, AggregateFunction> aggregateFunction : aggregate.getFunctions().entrySet()) {
+      aggregateFunction.getValue().mergeAggregates(otherFunctions.get(aggregateFunction.getKey()));
+    }
+    numericLayout.merge(aggregate.getNumericState(), other.getNumericState());
+  }
+
+  /**
+   * @return the output record for the given group key and aggregate value
+   */
+  StructuredRecord getOutput(StructuredRecord groupKey, AggregateResult aggregate) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
+    for (String groupByField : groupByFields) {
+      builder.set(groupByField, groupKey.get(groupByField));
+    }
+    for (int i = 0; i < functionInfos.length; i++) {
+      String name = functionInfos[i].getName();
+      if (numericIndexes[i] >= 0) {
+        builder.set(name, numericLayout.getAggregate(numericIndexes[i], aggregate.getNumericState()));
+      } else {
+        builder.set(name, aggregate.getFunctions().get(name).getAggregate());
+      }
+    }
+    return builder.build();
+  }
+}
@@ -59,6 +59,9 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
   private List<String> uniqueFields;
   private DedupConfig.DedupFunctionInfo filterFunction;
   private SelectionFunction selectionFunction;
+  // the group key schema is built once per input schema
+  private Schema groupKeyInputSchema;
+  private Schema groupKeySchema;
   private static final EnumSet<Schema.Type> ALLOWED_SCHEMA_TYPES = EnumSet.of(Schema.Type.INT, Schema.Type.LONG,
           Schema.Type.FLOAT, Schema.Type.DOUBLE);
   private static final EnumSet<Schema.LogicalType> ALLOWED_LOGICAL_SCHEMA_TYPES = EnumSet.of(Schema.LogicalType.DATE,
@@ -123,7 +126,12 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
       return;
     }
 
-    StructuredRecord.Builder builder = StructuredRecord.builder(getGroupKeySchema(record.getSchema()));
+    Schema schema = record.getSchema();
+    if (schema != groupKeyInputSchema && !schema.equals(groupKeyInputSchema)) {
+      groupKeySchema = getGroupKeySchema(schema);
+      groupKeyInputSchema = schema;
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(groupKeySchema);
     for (String fieldName : uniqueFields) {
       builder.set(fieldName, record.get(fieldName));
     }
@@ -171,7 +179,7 @@ public class DedupAggregator extends RecordReducibleAggregator<StructuredRecord>
 
   private Schema getGroupKeySchema(Schema inputSchema) {
     List<Schema.Field> fields = new ArrayList<>();
-    for (String fieldName : dedupConfig.getUniqueFields()) {
+    for (String fieldName : uniqueFields) {
       Schema.Field field = inputSchema.getField(fieldName);
       if (field == null) {
         throw new IllegalArgumentException(String.format("Field %s does not exist in input schema %s.",
@@ -28,6 +28,7 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
+import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchAggregatorContext;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
@@ -49,9 +50,16 @@ import javax.annotation.Nullable;
   "Can optionally take a list of fields, which will project out all other fields and perform a distinct " +
   "on just those fields.")
 public class DistinctAggregator extends RecordReducibleAggregator<StructuredRecord> {
+  private static final String DUPLICATES_DROPPED_METRIC = "distinct.duplicates.dropped";
+  private static final int METRICS_INTERVAL = 8192;
   private final Conf conf;
   private Iterable<String> fields;
   private Schema outputSchema;
+  private StageMetrics metrics;
+  private long duplicateCacheBytes;
+  private DistinctRecordSet emittedRecords;
+  private Schema emittedRecordsSchema;
+  private int unreportedDuplicates;
 
   /**
    * Plugin Configuration
@@ -65,9 +73,23 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
     @Macro
     private String fields;
 
+    @Macro
+    @Nullable
+    @Description("Maximum number of bytes used by each task to remember the distinct records it has emitted, so " +
+      "that duplicates are dropped before they are shuffled. When the limit is reached, the remembered records are " +
+      "dropped. Defaults to 0, which disables it.")
+    private Long duplicateCacheBytes;
+
     Iterable<String> getFields() {
       return fields == null ? Collections.emptyList() : Splitter.on(',').trimResults().split(fields);
     }
+
+    /**
+     * @return the byte budget of the map side duplicate table, 0 if it is disabled
+     */
+    long getDuplicateCacheBytes() {
+      return duplicateCacheBytes == null ? 0L : duplicateCacheBytes;
+    }
   }
 
   public DistinctAggregator(Conf conf) {
@@ -78,6 +100,11 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
     StageConfigurer stageConfigurer = pipelineConfigurer.getStageConfigurer();
+    if (!conf.containsMacro("duplicateCacheBytes") && conf.getDuplicateCacheBytes() < 0) {
+      stageConfigurer.getFailureCollector().addFailure("Duplicate cache size must not be negative.",
+                                                       "Set it to 0 to disable the duplicate cache.")
+        .withConfigProperty("duplicateCacheBytes");
+    }
     Schema inputSchema = stageConfigurer.getInputSchema();
     // If null, the input schema is unknown, or it's multiple schemas.
     // Output schema cannot be set if input schema or distinct fields are not available.
@@ -124,10 +151,20 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
   public void initialize(BatchRuntimeContext context) {
     outputSchema = context.getOutputSchema();
     fields = conf.getFields();
+    metrics = context.getMetrics();
+    duplicateCacheBytes = conf.getDuplicateCacheBytes();
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<StructuredRecord> emitter) {
+    if (isEmitted(record)) {
+      // counted locally, since reporting a metric for every record costs more than dropping it
+      if (++unreportedDuplicates == METRICS_INTERVAL) {
+        reportDuplicates();
+      }
+      return;
+    }
+
     if (fields == null || !fields.iterator().hasNext()) {
       emitter.emit(record);
       return;
@@ -141,6 +178,43 @@ public class DistinctAggregator extends RecordReducibleAggregator<StructuredReco
     emitter.emit(builder.build());
   }
 
+  /**
+   * Checks whether a record with the same distinct field values was already emitted by this task, remembering the
+   * record otherwise. Only exact matches are dropped, and the records emitted by different tasks, or forgotten when
+   * the set was flushed, are still deduplicated when they are grouped.
+   */
+  private boolean isEmitted(StructuredRecord record) {
+    if (duplicateCacheBytes == 0) {
+      return false;
+    }
+    Schema schema = record.getSchema();
+    if (schema != emittedRecordsSchema && !schema.equals(emittedRecordsSchema)) {
+      List<String> distinctFields = new ArrayList<>();
+      if (fields == null || !fields.iterator().hasNext()) {
+        for (Schema.Field field : schema.getFields()) {
+          distinctFields.add(field.getName());
+        }
+      } else {
+        fields.forEach(distinctFields::add);
+      }
+      emittedRecords = new DistinctRecordSet(distinctFields, duplicateCacheBytes);
+      emittedRecordsSchema = schema;
+    }
+    return emittedRecords.add(record);
+  }
+
+  private void reportDuplicates() {
+    metrics.count(DUPLICATES_DROPPED_METRIC, unreportedDuplicates);
+    unreportedDuplicates = 0;
+  }
+
+  @Override
+  public void destroy() {
+    if (unreportedDuplicates > 0) {
+      reportDuplicates();
+    }
+  }
+
   @Override
   public StructuredRecord initializeAggregateValue(StructuredRecord record) {
     return record;
@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of the distinct field values of the records a task has emitted, used to drop duplicate records before they
+ * are shuffled.
+ *
+ * The set is an open addressing hash table keyed by the serialized values of the distinct fields, so a record is
+ * only found if a record with exactly the same values was added. Its memory is bounded by a byte budget: once the
+ * budget is reached, the set is flushed and starts over. Records with values that cannot be serialized, such as
+ * nested records, are never added.
+ */
+final class DistinctRecordSet {
+  // estimated size of a table slot, on top of the serialized values
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private static final byte NULL = 0;
+  private static final byte BOOLEAN = 1;
+  private static final byte INT = 2;
+  private static final byte LONG = 3;
+  private static final byte FLOAT = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte STRING = 6;
+  private static final byte BYTES = 7;
+
+  private final String[] fields;
+  private final long maxBytes;
+
+  private int[] hashes;
+  private byte[][] keys;
+  private int size;
+  private long bytes;
+  private long flushes;
+  // reused for serializing the values of every record
+  private byte[] buffer = new byte[64];
+  private int position;
+
+  /**
+   * @param fields the distinct fields
+   * @param maxBytes the byte budget of the set, 0 disables the set
+   */
+  DistinctRecordSet(List<String> fields, long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException(String.format(
+        "The duplicate cache size must not be negative, but is %d.", maxBytes));
+    }
+    this.fields = fields.toArray(new String[0]);
+    this.maxBytes = maxBytes;
+    hashes = new int[INITIAL_CAPACITY];
+    keys = new byte[INITIAL_CAPACITY][];
+  }
+
+  /**
+   * Adds the distinct field values of the given record to the set.
+   *
+   * @return whether a record with the same values was added since the set was last flushed
+   */
+  boolean add(StructuredRecord record) {
+    if (maxBytes == 0 || !serialize(record)) {
+      return false;
+    }
+
+    int hash = hash(buffer, position);
+    int mask = hashes.length - 1;
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && equalsBuffer(keys[slot])) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    long entryBytes = position + ENTRY_OVERHEAD_BYTES;
+    if (bytes + entryBytes > maxBytes) {
+      flush();
+      slot = hash & mask;
+    } else if ((size + 1) * 2 > hashes.length) {
+      resize();
+      slot = findFreeSlot(hash);
+    }
+    hashes[slot] = hash;
+    keys[slot] = Arrays.copyOf(buffer, position);
+    size++;
+    bytes += entryBytes;
+    return false;
+  }
+
+  long getFlushes() {
+    return flushes;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Drops all the values in the set, keeping its capacity.
+   */
+  private void flush() {
+    Arrays.fill(keys, null);
+    size = 0;
+    bytes = 0;
+    flushes++;
+  }
+
+  private void resize() {
+    int[] oldHashes = hashes;
+    byte[][] oldKeys = keys;
+    hashes = new int[oldHashes.length * 2];
+    keys = new byte[oldKeys.length * 2][];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = findFreeSlot(oldHashes[i]);
+        hashes[slot] = oldHashes[i];
+        keys[slot] = oldKeys[i];
+      }
+    }
+  }
+
+  private int findFreeSlot(int hash) {
+    int mask = hashes.length - 1;
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean equalsBuffer(byte[] key) {
+    if (key.length != position) {
+      return false;
+    }
+    for (int i = 0; i < position; i++) {
+      if (key[i] != buffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(byte[] bytes, int length) {
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    // spread the bits, since the slot only uses the low bits of the hash
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Serializes the distinct field values of the record into the buffer. Every value is prefixed with its type, and
+   * variable length values with their length, so that different values never serialize to the same bytes.
+   *
+   * @return whether all the values could be serialized
+   */
+  private boolean serialize(StructuredRecord record) {
+    position = 0;
+    for (String field : fields) {
+      Object value = record.get(field);
+      if (value == null) {
+        writeByte(NULL);
+      } else if (value instanceof String) {
+        String str = (String) value;
+        writeByte(STRING);
+        writeInt(str.length());
+        for (int i = 0; i < str.length(); i++) {
+          char c = str.charAt(i);
+          writeByte((byte) (c >>> 8));
+          writeByte((byte) c);
+        }
+      } else if (value instanceof Integer) {
+        writeByte(INT);
+        writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        writeByte(LONG);
+        writeLong((Long) value);
+      } else if (value instanceof Boolean) {
+        writeByte(BOOLEAN);
+        writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+      } else if (value instanceof Double) {
+        writeByte(DOUBLE);
+        writeLong(Double.doubleToLongBits((Double) value));
+      } else if (value instanceof Float) {
+        writeByte(FLOAT);
+        writeInt(Float.floatToIntBits((Float) value));
+      } else if (value instanceof byte[]) {
+        byte[] valueBytes = (byte[]) value;
+        writeByte(BYTES);
+        writeInt(valueBytes.length);
+        for (byte b : valueBytes) {
+          writeByte(b);
+        }
+      } else {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeByte(byte b) {
+    if (position == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    buffer[position++] = b;
+  }
+
+  private void writeInt(int value) {
+    writeByte((byte) (value >>> 24));
+    writeByte((byte) (value >>> 16));
+    writeByte((byte) (value >>> 8));
+    writeByte((byte) value);
+  }
+
+  private void writeLong(long value) {
+    writeInt((int) (value >>> 32));
+    writeInt((int) value);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable index from field names to slot numbers, built once and looked up for every record. The names and
+ * slots are kept in two parallel arrays used as an open addressing hash table that is at most half full, so a
+ * lookup hashes the name once and usually compares it to a single entry, without boxing the slot.
+ */
+final class FieldSlotIndex {
+  private final String[] names;
+  private final int[] slots;
+
+  /**
+   * @param slotsByName the slot of every name, slots must not be negative
+   */
+  FieldSlotIndex(Map<String, Integer> slotsByName) {
+    int capacity = Integer.highestOneBit(Math.max(1, slotsByName.size()) * 2 - 1) << 1;
+    this.names = new String[capacity];
+    this.slots = new int[capacity];
+    int mask = capacity - 1;
+    for (Map.Entry<String, Integer> entry : slotsByName.entrySet()) {
+      int index = spread(entry.getKey().hashCode()) & mask;
+      while (names[index] != null) {
+        index = (index + 1) & mask;
+      }
+      names[index] = entry.getKey();
+      slots[index] = entry.getValue();
+    }
+  }
+
+  /**
+   * @return the slot of the given name, or -1 if the name is not in the index
+   */
+  int getSlot(@Nullable String name) {
+    if (name == null) {
+      return -1;
+    }
+    int mask = names.length - 1;
+    int index = spread(name.hashCode()) & mask;
+    String candidate;
+    while ((candidate = names[index]) != null) {
+      if (candidate.equals(name)) {
+        return slots[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -48,6 +48,7 @@ import io.cdap.plugin.common.SchemaValidator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +65,7 @@ import java.util.Set;
   "`Standard Deviation`, `Variance`, `Count Distinct` as aggregate functions.")
 public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult>
   implements LinearRelationalTransform {
+  private static final int MAX_CACHED_SCHEMA_INSTANCES = 64;
   private final GroupByConfig conf;
   private final HashMap<String, String> functionNameMap = new HashMap<String, String>() {{
     put("AVG", "Avg");
@@ -77,7 +79,13 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     put("VARIANCE", "Variance");
     put("COLLECTLIST", "CollectList");
     put("COLLECTSET", "CollectSet");
+    put("TOPK", "TopK");
+    put("TOPKBY", "TopKBy");
     put("COUNTDISTINCT", "CountDistinct");
+    put("APPROXCOUNTDISTINCT", "ApproxCountDistinct");
+    put("PERCENTILE", "Percentile");
+    put("MEDIAN", "Median");
+    put("APPROXQUANTILES", "ApproxQuantiles");
     put("LONGESTSTRING", "LongestString");
     put("SHORTESTSTRING", "ShortestString");
     put("COUNTNULLS", "CountNulls");
@@ -91,6 +99,9 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     put("COUNTDISTINCTIF", "CountDistinctIf");
     put("SUMIF", "SumIf");
     put("AVGIF", "AvgIf");
+    put("PERCENTILEIF", "PercentileIf");
+    put("MEDIANIF", "MedianIf");
+    put("APPROXQUANTILESIF", "ApproxQuantilesIf");
     put("MINIF", "MinIf");
     put("MAXIF", "MaxIf");
     put("STDDEVIF", "StddevIf");
@@ -130,6 +141,9 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
   private final HashMap<GroupByConfig.Function, String> functionBQSqlMap =
     new HashMap<GroupByConfig.Function, String>() {{
       put(GroupByConfig.Function.COLLECTLIST, "ARRAY_AGG(%s IGNORE NULLS)");
+      // the sketch precision is chosen by BigQuery, null is counted as a distinct value as in CountDistinct
+      put(GroupByConfig.Function.APPROXCOUNTDISTINCT,
+          "APPROX_COUNT_DISTINCT(%s) + COALESCE(MAX(CASE WHEN %<s IS NULL THEN 1 ELSE 0 END), 0)");
       put(GroupByConfig.Function.COLLECTSET, "ARRAY_AGG(DISTINCT %s IGNORE NULLS)");
       put(GroupByConfig.Function.CONCAT, "STRING_AGG(CAST(%s AS STRING), \", \")");
       put(GroupByConfig.Function.CONCATDISTINCT, "STRING_AGG(DISTINCT CAST(%s AS STRING) , \", \")");
@@ -141,9 +155,12 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
           "STRING_AGG(CAST(%s AS STRING) ORDER BY LENGTH(CAST(%<s AS STRING)) DESC LIMIT 1)");
     }};
 
+  // plans are looked up by schema instance first, since all records read by a task usually share one instance.
+  // Schemas of aggregate values read back from the shuffle are new instances, so equality is the fallback.
+  private final Map<Schema, AggregationPlan> plansByInstance = new IdentityHashMap<>();
+  private final Map<Schema, AggregationPlan> plans = new HashMap<>();
   private List<String> groupByFields;
   private List<GroupByConfig.FunctionInfo> functionInfos;
-  private Schema outputSchema;
   private GroupByAggregationDefinition aggregationDefinition;
 
   public GroupByAggregator(GroupByConfig conf) {
@@ -209,9 +226,19 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
       }
 
       // TODO: CDAP-16401 - Push down validation to individual aggregate functions
-      if (GroupByConfig.Function.COUNTDISTINCT == functionInfo.getFunction()) {
+      if (GroupByConfig.Function.COUNTDISTINCT == functionInfo.getFunction()
+        || GroupByConfig.Function.APPROXCOUNTDISTINCT == functionInfo.getFunction()) {
         validateCountDistinct(inputField, collector, collectorFieldName);
       }
+
+      if (GroupByConfig.Function.TOPKBY == functionInfo.getFunction()
+        && (functionInfo.getArguments().isEmpty()
+        || inputSchema.getField(functionInfo.getOrderFieldArgument()) == null)) {
+        collector.addFailure(
+          String.format("Invalid aggregate %s: the field to order by must be a field of the input schema.",
+                        functionInfo.getName()), "Specify it as topKBy(field, orderField, k).")
+          .withConfigElement("aggregates", collectorFieldName);
+      }
     }
     validateConditionalFunctions(inputSchema, conf.getAggregates(), collector);
   }
@@ -314,54 +341,60 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     groupByFields = conf.getGroupByFields();
     functionInfos = conf.getAggregates();
     if (context.getInputSchema() != null) {
-      initAggregates(context.getInputSchema());
+      getPlan(context.getInputSchema());
     }
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<StructuredRecord> emitter) throws Exception {
-    // app should provide some way to make some data calculated in configurePipeline available here.
-    // then we wouldn't have to calculate schema here
-    StructuredRecord.Builder builder = StructuredRecord.builder(getGroupKeySchema(record.getSchema()));
-    for (String groupByField : conf.getGroupByFields()) {
-      builder.set(groupByField, record.get(groupByField));
-    }
-    emitter.emit(builder.build());
+    emitter.emit(getPlan(record.getSchema()).getGroupKey(record));
   }
 
   @Override
   public AggregateResult initializeAggregateValue(StructuredRecord record) {
-    Map<String, AggregateFunction> functions = initAggregates(record.getSchema());
-    functions.values().forEach(AggregateFunction::initialize);
-    updateAggregates(functions, record);
-    return new AggregateResult(record.getSchema(), functions);
+    AggregationPlan plan = getPlan(record.getSchema());
+    AggregateResult aggregate = plan.createAggregate(record.getSchema());
+    plan.mergeValue(aggregate, record);
+    return aggregate;
   }
 
   @Override
   public AggregateResult mergeValues(AggregateResult agg, StructuredRecord record) {
-    updateAggregates(agg.getFunctions(), record);
+    getPlan(agg.getInputSchema()).mergeValue(agg, record);
     return agg;
   }
 
   @Override
   public AggregateResult mergePartitions(AggregateResult agg1, AggregateResult agg2) {
-    mergeAggregates(agg1.getFunctions(), agg2.getFunctions());
+    getPlan(agg1.getInputSchema()).merge(agg1, agg2);
     return agg1;
   }
 
   @Override
   public void finalize(StructuredRecord groupKey, AggregateResult aggValue,
                        Emitter<StructuredRecord> emitter) {
-    initAggregates(aggValue.getInputSchema());
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (String groupByField : groupByFields) {
-      builder.set(groupByField, groupKey.get(groupByField));
-    }
+    emitter.emit(getPlan(aggValue.getInputSchema()).getOutput(groupKey, aggValue));
+  }
 
-    for (Map.Entry<String, AggregateFunction> aggregateFunction : aggValue.getFunctions().entrySet()) {
-      builder.set(aggregateFunction.getKey(), aggregateFunction.getValue().getAggregate());
-    }
-    emitter.emit(builder.build());
+  /**
+   * Returns the aggregation plan for the given input schema, compiling it the first time the schema is seen.
+   */
+  private AggregationPlan getPlan(Schema inputSchema) {
+    AggregationPlan plan = plansByInstance.get(inputSchema);
+    if (plan != null) {
+      return plan;
+    }
+    plan = plans.get(inputSchema);
+    if (plan == null) {
+      plan = AggregationPlan.compile(inputSchema, groupByFields, functionInfos);
+      plans.put(inputSchema, plan);
+    }
+    // deserialized aggregate values each carry their own schema instance, don't let those pile up
+    if (plansByInstance.size() >= MAX_CACHED_SCHEMA_INSTANCES) {
+      plansByInstance.clear();
+    }
+    plansByInstance.put(inputSchema, plan);
+    return plan;
   }
 
   private Schema getOutputSchema(Schema inputSchema, List<String> groupByFields,
@@ -385,18 +418,6 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     return Schema.recordOf(inputSchema.getRecordName() + ".agg", outputFields);
   }
 
-  private void updateAggregates(Map<String, AggregateFunction> aggregateFunctions, StructuredRecord groupVal) {
-    for (AggregateFunction aggregateFunction : aggregateFunctions.values()) {
-      aggregateFunction.mergeValue(groupVal);
-    }
-  }
-
-  private void mergeAggregates(Map<String, AggregateFunction> agg1, Map<String, AggregateFunction> agg2) {
-    for (Map.Entry<String, AggregateFunction> aggregateFunction : agg1.entrySet()) {
-      aggregateFunction.getValue().mergeAggregates(agg2.get(aggregateFunction.getKey()));
-    }
-  }
-
   private Schema.Field getOutputSchemaField(GroupByConfig.FunctionInfo functionInfo, Schema inputSchema) {
     // special case count(*) because we don't have to check that the input field exists
     if (functionInfo.getField().equals("*")) {
@@ -414,38 +435,6 @@ public class GroupByAggregator extends RecordReducibleAggregator<AggregateResult
     return Schema.Field.of(functionInfo.getName(), aggregateFunction.getOutputSchema());
   }
 
-  private Map<String, AggregateFunction> initAggregates(Schema valueSchema) {
-    List<Schema.Field> outputFields = new ArrayList<>(groupByFields.size() + functionInfos.size());
-    for (String groupByField : groupByFields) {
-      outputFields.add(valueSchema.getField(groupByField));
-    }
-
-    Map<String, AggregateFunction> functions = new HashMap<>();
-    for (GroupByConfig.FunctionInfo functionInfo : functionInfos) {
-      Schema.Field inputField = valueSchema.getField(functionInfo.getField());
-      Schema fieldSchema = inputField == null ? null : inputField.getSchema();
-      AggregateFunction aggregateFunction = functionInfo.getAggregateFunction(fieldSchema);
-      outputFields.add(Schema.Field.of(functionInfo.getName(), aggregateFunction.getOutputSchema()));
-      functions.put(functionInfo.getName(), aggregateFunction);
-    }
-    outputSchema = Schema.recordOf(valueSchema.getRecordName() + ".agg", outputFields);
-    return functions;
-  }
-
-  private Schema getGroupKeySchema(Schema inputSchema) {
-    List<Schema.Field> fields = new ArrayList<>();
-    for (String groupByField : conf.getGroupByFields()) {
-      Schema.Field fieldSchema = inputSchema.getField(groupByField);
-      if (fieldSchema == null) {
-        throw new IllegalArgumentException(String.format(
-          "Cannot group by field '%s' because it does not exist in input schema %s",
-          groupByField, inputSchema));
-      }
-      fields.add(fieldSchema);
-    }
-    return Schema.recordOf("group.key.schema", fields);
-  }
-
   @Override
   public Relation transform(RelationalTranformContext relationalTranformContext, Relation relation) {
     // Check if this aggregation definition is supported in SQL
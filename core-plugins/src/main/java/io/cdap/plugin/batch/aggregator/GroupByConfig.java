@@ -25,6 +25,9 @@ import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.batch.aggregator.function.AggregateFunction;
 import io.cdap.plugin.batch.aggregator.function.AnyIf;
+import io.cdap.plugin.batch.aggregator.function.ApproxCountDistinct;
+import io.cdap.plugin.batch.aggregator.function.ApproxQuantiles;
+import io.cdap.plugin.batch.aggregator.function.ApproxQuantilesIf;
 import io.cdap.plugin.batch.aggregator.function.Avg;
 import io.cdap.plugin.batch.aggregator.function.AvgIf;
 import io.cdap.plugin.batch.aggregator.function.CollectList;
@@ -54,8 +57,13 @@ import io.cdap.plugin.batch.aggregator.function.LongestString;
 import io.cdap.plugin.batch.aggregator.function.LongestStringIf;
 import io.cdap.plugin.batch.aggregator.function.Max;
 import io.cdap.plugin.batch.aggregator.function.MaxIf;
+import io.cdap.plugin.batch.aggregator.function.Median;
+import io.cdap.plugin.batch.aggregator.function.MedianIf;
 import io.cdap.plugin.batch.aggregator.function.Min;
 import io.cdap.plugin.batch.aggregator.function.MinIf;
+import io.cdap.plugin.batch.aggregator.function.NumericSlot;
+import io.cdap.plugin.batch.aggregator.function.Percentile;
+import io.cdap.plugin.batch.aggregator.function.PercentileIf;
 import io.cdap.plugin.batch.aggregator.function.ShortestString;
 import io.cdap.plugin.batch.aggregator.function.ShortestStringIf;
 import io.cdap.plugin.batch.aggregator.function.Stddev;
@@ -64,14 +72,18 @@ import io.cdap.plugin.batch.aggregator.function.Sum;
 import io.cdap.plugin.batch.aggregator.function.SumIf;
 import io.cdap.plugin.batch.aggregator.function.SumOfSquares;
 import io.cdap.plugin.batch.aggregator.function.SumOfSquaresIf;
+import io.cdap.plugin.batch.aggregator.function.TopK;
+import io.cdap.plugin.batch.aggregator.function.TopKBy;
 import io.cdap.plugin.batch.aggregator.function.Variance;
 import io.cdap.plugin.batch.aggregator.function.VarianceIf;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Config for group by types of plugins.
@@ -83,6 +95,7 @@ public class GroupByConfig extends AggregatorConfig {
     "Supported aggregate functions are count, count(*), sum, avg, min, max, first, last. " +
     "A function must specify the field it should be applied on, as well as the name it should be called. " +
     "Aggregates are specified using syntax: \"name:function(field)[, other aggregates]\"." +
+    "Functions that take arguments are specified as \"name:function(field, argument)\"." +
     "For example, 'avgPrice:avg(price),cheapest:min(price)' will calculate two aggregates. " +
     "The first will create a field called 'avgPrice' that is the average of all 'price' fields in the group. " +
     "The second will create a field called 'cheapest' that contains the minimum 'price' field in the group")
@@ -135,7 +148,7 @@ public class GroupByConfig extends AggregatorConfig {
       return functionInfos;
     }
     Set<String> aggregateNames = new HashSet<>();
-    for (String aggregate : Splitter.on(',').trimResults().split(aggregates)) {
+    for (String aggregate : splitAggregates(aggregates)) {
       int colonIdx = aggregate.indexOf(':');
       if (colonIdx < 0) {
         throw new IllegalArgumentException(String.format(
@@ -172,10 +185,23 @@ public class GroupByConfig extends AggregatorConfig {
       // check if condition involved extract substring up to condition otherwise extract up to length of string
       int fieldEndIndex = (conditionIndex == -1) ? functionAndField.length() - 1 : conditionIndex - 2;
       String field = functionAndField.substring(leftParanIdx + 1, fieldEndIndex).trim();
+      List<String> arguments = new ArrayList<>();
+      int argumentsIdx = field.indexOf(',');
+      if (argumentsIdx >= 0) {
+        for (String argument : Splitter.on(',').trimResults().split(field.substring(argumentsIdx + 1))) {
+          arguments.add(argument);
+        }
+        field = field.substring(0, argumentsIdx).trim();
+      }
       if (field.isEmpty()) {
         throw new IllegalArgumentException(String.format(
           "Invalid function '%s'. A field must be given as an argument.", functionAndField));
       }
+      if (arguments.size() > function.getMaxArguments()) {
+        throw new IllegalArgumentException(String.format(
+          "Invalid function '%s'. Function '%s' takes at most %d argument(s) besides the field.",
+          functionAndField, functionStr, function.getMaxArguments()));
+      }
       if (conditionIndex == -1 && function.isConditional()) {
         throw new IllegalArgumentException("Missing 'condition' property for conditional function.");
       }
@@ -191,7 +217,7 @@ public class GroupByConfig extends AggregatorConfig {
         }
         functionCondition = functionCondition.trim();
       }
-      functionInfos.add(new FunctionInfo(name, field, function, functionCondition));
+      functionInfos.add(new FunctionInfo(name, field, function, functionCondition, arguments));
     }
 
     if (functionInfos.isEmpty()) {
@@ -200,6 +226,46 @@ public class GroupByConfig extends AggregatorConfig {
     return functionInfos;
   }
 
+  /**
+   * Splits the aggregates on the commas that are not enclosed in parentheses or quotes, so that function
+   * arguments and conditions can contain commas.
+   */
+  private static List<String> splitAggregates(String aggregates) {
+    List<String> result = new ArrayList<>();
+    int depth = 0;
+    char quote = 0;
+    int start = 0;
+    for (int i = 0; i < aggregates.length(); i++) {
+      char c = aggregates.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+        continue;
+      }
+      switch (c) {
+        case '\'':
+        case '"':
+          quote = c;
+          break;
+        case '(':
+          depth++;
+          break;
+        case ')':
+          depth--;
+          break;
+        case ',':
+          if (depth == 0) {
+            result.add(aggregates.substring(start, i).trim());
+            start = i + 1;
+          }
+          break;
+      }
+    }
+    result.add(aggregates.substring(start).trim());
+    return result;
+  }
+
   /**
    * Class to hold information for an aggregate function.
    */
@@ -208,19 +274,22 @@ public class GroupByConfig extends AggregatorConfig {
     private final String field;
     private final Function function;
     private final String condition;
+    private final List<String> arguments;
 
-    FunctionInfo(String name, String field, Function function, String condition) {
+    FunctionInfo(String name, String field, Function function, String condition, List<String> arguments) {
       this.name = name;
       this.field = field;
       this.function = function;
       this.condition = condition;
+      this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+    }
+
+    FunctionInfo(String name, String field, Function function, String condition) {
+      this(name, field, function, condition, Collections.emptyList());
     }
 
     FunctionInfo(String name, String field, Function function) {
-      this.name = name;
-      this.field = field;
-      this.function = function;
-      this.condition = null;
+      this(name, field, function, null);
     }
 
     public String getName() {
@@ -239,6 +308,13 @@ public class GroupByConfig extends AggregatorConfig {
       return condition;
     }
 
+    /**
+     * @return the arguments given to the function besides the field, empty if there are none
+     */
+    public List<String> getArguments() {
+      return arguments;
+    }
+
     public AggregateFunction getAggregateFunction(Schema fieldSchema) {
       switch (function) {
         case COUNT:
@@ -248,8 +324,16 @@ public class GroupByConfig extends AggregatorConfig {
           return new Count(field);
         case COUNTDISTINCT:
           return new CountDistinct(field);
+        case APPROXCOUNTDISTINCT:
+          return new ApproxCountDistinct(field, getIntArgument(0, ApproxCountDistinct.DEFAULT_PRECISION));
         case SUM:
           return new Sum(field, fieldSchema);
+        case PERCENTILE:
+          return new Percentile(field, fieldSchema, getPercentileArgument());
+        case MEDIAN:
+          return new Median(field, fieldSchema);
+        case APPROXQUANTILES:
+          return new ApproxQuantiles(field, fieldSchema, getIntArgument(0, ApproxQuantiles.DEFAULT_QUANTILES));
         case AVG:
           return new Avg(field, fieldSchema);
         case MIN:
@@ -268,6 +352,10 @@ public class GroupByConfig extends AggregatorConfig {
           return new CollectList(field, fieldSchema);
         case COLLECTSET:
           return new CollectSet(field, fieldSchema);
+        case TOPK:
+          return new TopK(field, fieldSchema, getIntArgument(0, TopK.DEFAULT_K));
+        case TOPKBY:
+          return new TopKBy(field, fieldSchema, getOrderFieldArgument(), getIntArgument(1, TopK.DEFAULT_K));
         case LONGESTSTRING:
           return new LongestString(field, fieldSchema);
         case SHORTESTSTRING:
@@ -292,6 +380,13 @@ public class GroupByConfig extends AggregatorConfig {
           return new CountDistinctIf(field, JexlCondition.of(condition));
         case SUMIF:
           return new SumIf(field, fieldSchema, JexlCondition.of(condition));
+        case PERCENTILEIF:
+          return new PercentileIf(field, fieldSchema, getPercentileArgument(), JexlCondition.of(condition));
+        case MEDIANIF:
+          return new MedianIf(field, fieldSchema, JexlCondition.of(condition));
+        case APPROXQUANTILESIF:
+          return new ApproxQuantilesIf(field, fieldSchema, getIntArgument(0, ApproxQuantiles.DEFAULT_QUANTILES),
+                                       JexlCondition.of(condition));
         case AVGIF:
           return new AvgIf(field, fieldSchema, JexlCondition.of(condition));
         case MINIF:
@@ -329,6 +424,73 @@ public class GroupByConfig extends AggregatorConfig {
       throw new IllegalStateException("Unknown function type " + function);
     }
 
+    private int getIntArgument(int index, int defaultValue) {
+      if (arguments.size() <= index) {
+        return defaultValue;
+      }
+      try {
+        return Integer.parseInt(arguments.get(index));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(String.format(
+          "Invalid argument '%s' for aggregate '%s'. It must be an integer.", arguments.get(index), name), e);
+      }
+    }
+
+    /**
+     * @return the field to order by, for functions that take one as their first argument
+     */
+    public String getOrderFieldArgument() {
+      if (arguments.isEmpty()) {
+        throw new IllegalArgumentException(String.format(
+          "Aggregate '%s' is missing the field to order by. It must be specified as %s(%s, <field>, <k>).",
+          name, function.name().toLowerCase(), field));
+      }
+      return arguments.get(0);
+    }
+
+    private double getPercentileArgument() {
+      if (arguments.isEmpty()) {
+        throw new IllegalArgumentException(String.format(
+          "Aggregate '%s' is missing the percentile. It must be specified as %s(%s, <percentile>).",
+          name, function.name().toLowerCase(), field));
+      }
+      try {
+        return Double.parseDouble(arguments.get(0));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(String.format(
+          "Invalid argument '%s' for aggregate '%s'. It must be a number.", arguments.get(0), name), e);
+      }
+    }
+
+    /**
+     * Returns the slab based implementation of this function, for functions that have one.
+     *
+     * @param fieldSchema schema of the aggregated field, already validated by {@link #getAggregateFunction(Schema)}
+     * @return the numeric slot of this function, or null if the function has to be computed by its
+     *   {@link AggregateFunction}
+     */
+    @Nullable
+    public NumericSlot getNumericSlot(Schema fieldSchema) {
+      switch (function) {
+        case COUNT:
+          return "*".equals(field) ? NumericSlot.countAll() : NumericSlot.count(field);
+        case SUM:
+          return NumericSlot.sum(field, fieldSchema);
+        case AVG:
+          return NumericSlot.avg(field);
+        case MIN:
+          return NumericSlot.min(field, fieldSchema);
+        case MAX:
+          return NumericSlot.max(field, fieldSchema);
+        case STDDEV:
+          return NumericSlot.stddev(field);
+        case VARIANCE:
+          return NumericSlot.variance(field);
+        default:
+          return null;
+      }
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -343,12 +505,13 @@ public class GroupByConfig extends AggregatorConfig {
       return Objects.equals(name, that.name) &&
         Objects.equals(field, that.field) &&
         Objects.equals(function, that.function) &&
-        Objects.equals(condition, that.condition);
+        Objects.equals(condition, that.condition) &&
+        Objects.equals(arguments, that.arguments);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(name, field, function, condition);
+      return Objects.hash(name, field, function, condition, arguments);
     }
 
     @Override
@@ -358,6 +521,7 @@ public class GroupByConfig extends AggregatorConfig {
         ", field='" + field + '\'' +
         ", function=" + function + '\'' +
         ", condition=" + condition +
+        ", arguments=" + arguments +
         '}';
     }
   }
@@ -370,7 +534,11 @@ public class GroupByConfig extends AggregatorConfig {
   enum Function {
     COUNT(FunctionType.NONE),
     COUNTDISTINCT(FunctionType.NONE),
+    APPROXCOUNTDISTINCT(FunctionType.NONE, 1),
     SUM(FunctionType.NONE),
+    PERCENTILE(FunctionType.NONE, 1),
+    MEDIAN(FunctionType.NONE),
+    APPROXQUANTILES(FunctionType.NONE, 1),
     AVG(FunctionType.NONE),
     MIN(FunctionType.NONE),
     MAX(FunctionType.NONE),
@@ -380,6 +548,8 @@ public class GroupByConfig extends AggregatorConfig {
     VARIANCE(FunctionType.NONE),
     COLLECTLIST(FunctionType.NONE),
     COLLECTSET(FunctionType.NONE),
+    TOPK(FunctionType.NONE, 1),
+    TOPKBY(FunctionType.NONE, 2),
     LONGESTSTRING(FunctionType.NONE),
     SHORTESTSTRING(FunctionType.NONE),
     COUNTNULLS(FunctionType.NONE),
@@ -392,6 +562,9 @@ public class GroupByConfig extends AggregatorConfig {
     COUNTIF(FunctionType.CONDITIONAL),
     COUNTDISTINCTIF(FunctionType.CONDITIONAL),
     SUMIF(FunctionType.CONDITIONAL),
+    PERCENTILEIF(FunctionType.CONDITIONAL, 1),
+    MEDIANIF(FunctionType.CONDITIONAL),
+    APPROXQUANTILESIF(FunctionType.CONDITIONAL, 1),
     AVGIF(FunctionType.CONDITIONAL),
     MINIF(FunctionType.CONDITIONAL),
     MAXIF(FunctionType.CONDITIONAL),
@@ -410,13 +583,26 @@ public class GroupByConfig extends AggregatorConfig {
     ANYIF(FunctionType.CONDITIONAL);
 
     private final FunctionType type;
+    private final int maxArguments;
 
     Function(final FunctionType type) {
+      this(type, 0);
+    }
+
+    Function(final FunctionType type, int maxArguments) {
       this.type = type;
+      this.maxArguments = maxArguments;
     }
 
     public boolean isConditional() {
       return this.type == FunctionType.CONDITIONAL;
     }
+
+    /**
+     * @return the number of arguments the function accepts besides the field
+     */
+    public int getMaxArguments() {
+      return maxArguments;
+    }
   }
 }
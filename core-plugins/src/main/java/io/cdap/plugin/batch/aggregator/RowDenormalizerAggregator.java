@@ -27,16 +27,21 @@ import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchAggregatorContext;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Batch RowDenormalizer Aggregator Plugin - It is used to de-normalize data based on the key column.
+ *
+ * The aggregate value of a key is its output row: an array with one slot per output field, so the memory used per
+ * key is bounded by the number of output fields no matter how many name/value records the key has. Records are
+ * folded into the row as they arrive, including in the map side combine, and names that are not output fields
+ * are dropped there instead of being shuffled.
  */
 @Plugin(type = BatchAggregator.PLUGIN_TYPE)
 @Name("RowDenormalizer")
@@ -45,18 +50,21 @@ import java.util.Set;
   "an option to use an alias for the output field name. " +
   "For example, " +
   "'ADDRESS' in the input is mapped to 'addr' in the output schema. The denormalized data is easier to query.")
-public class RowDenormalizerAggregator extends BatchAggregator<String, StructuredRecord, StructuredRecord> {
+public class RowDenormalizerAggregator
+  extends BatchReducibleAggregator<String, StructuredRecord, String[], StructuredRecord> {
 
   private static final String KEY_FIELD = "keyField";
   private static final String NAME_FIELD = "nameField";
   private static final String VALUE_FIELD = "valueField";
   private final RowDenormalizerConfig conf;
-  private Map<String, String> outputMappings;
-  private Set<String> outputFields;
+  private FieldSlotIndex slotIndex;
+  private String[] outputFieldNames;
   private Schema outputSchema;
   private String keyField;
   private String nameField;
   private String valueField;
+  // input schema the fields were last checked against
+  private Schema validatedSchema;
 
   public RowDenormalizerAggregator(RowDenormalizerConfig conf) {
     this.conf = conf;
@@ -80,51 +88,100 @@ public class RowDenormalizerAggregator extends BatchAggregator<String, Structure
 
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
-    outputFields = conf.getOutputSchemaFields();
-    outputMappings = conf.getFieldAliases();
     keyField = conf.getKeyField();
     nameField = conf.getNameField();
     valueField = conf.getValueField();
     outputSchema = initializeOutputSchema();
+    outputFieldNames = conf.getOutputSchemaFields().toArray(new String[0]);
+    slotIndex = createSlotIndex(conf.getFieldAliases(), outputFieldNames);
+  }
+
+  /**
+   * Maps every name that may appear in the name field to the slot of its output field: the names with an alias
+   * whose alias is an output field, and the output fields that are not aliased themselves.
+   */
+  static FieldSlotIndex createSlotIndex(Map<String, String> aliases, String[] outputFieldNames) {
+    Map<String, Integer> outputSlots = new HashMap<>();
+    for (int i = 0; i < outputFieldNames.length; i++) {
+      outputSlots.put(outputFieldNames[i], i);
+    }
+    Map<String, Integer> slotsByName = new HashMap<>();
+    for (Map.Entry<String, String> alias : aliases.entrySet()) {
+      Integer slot = outputSlots.get(alias.getValue());
+      if (slot != null) {
+        slotsByName.put(alias.getKey(), slot);
+      }
+    }
+    for (Map.Entry<String, Integer> outputSlot : outputSlots.entrySet()) {
+      if (!aliases.containsKey(outputSlot.getKey())) {
+        slotsByName.put(outputSlot.getKey(), outputSlot.getValue());
+      }
+    }
+    return new FieldSlotIndex(slotsByName);
   }
 
   @Override
   public void groupBy(StructuredRecord record, Emitter<String> emitter) throws Exception {
-    if (record.get(keyField) == null) {
-      if (record.getSchema().getField(keyField) == null) {
-        throw new IllegalArgumentException(
-          String.format("Keyfield '%s' does not exist in input schema %s", keyField, record.getSchema()));
-      }
-      return;
+    Schema schema = record.getSchema();
+    if (schema != validatedSchema) {
+      validateRecordSchema(schema);
+      validatedSchema = schema;
+    }
+    String key = record.get(keyField);
+    if (key != null) {
+      emitter.emit(key);
+    }
+  }
+
+  private void validateRecordSchema(Schema schema) {
+    if (schema.getField(keyField) == null) {
+      throw new IllegalArgumentException(
+        String.format("Keyfield '%s' does not exist in input schema %s", keyField, schema));
     }
-    if (record.get(nameField) == null && record.getSchema().getField(nameField) == null) {
+    if (schema.getField(nameField) == null) {
       throw new IllegalArgumentException(
-        String.format("Namefield '%s' does not exist in input schema %s", nameField, record.getSchema()));
+        String.format("Namefield '%s' does not exist in input schema %s", nameField, schema));
     }
-    if (record.get(valueField) == null && record.getSchema().getField(valueField) == null) {
+    if (schema.getField(valueField) == null) {
       throw new IllegalArgumentException(
-        String.format("Valuefield '%s' does not exist in input schema %s", valueField, record.getSchema()));
+        String.format("Valuefield '%s' does not exist in input schema %s", valueField, schema));
+    }
+  }
+
+  @Override
+  public String[] initializeAggregateValue(StructuredRecord record) {
+    return mergeValues(new String[outputFieldNames.length], record);
+  }
+
+  @Override
+  public String[] mergeValues(String[] row, StructuredRecord record) {
+    int slot = slotIndex.getSlot(record.get(nameField));
+    if (slot >= 0) {
+      String value = record.get(valueField);
+      if (value != null) {
+        row[slot] = value;
+      }
     }
-    emitter.emit((String) record.get(keyField));
+    return row;
   }
 
   @Override
-  public void aggregate(String groupKey, Iterator<StructuredRecord> iterator,
-                        Emitter<StructuredRecord> emitter) throws Exception {
-    if (!iterator.hasNext()) {
-      return;
+  public String[] mergePartitions(String[] row, String[] otherRow) {
+    for (int i = 0; i < row.length; i++) {
+      if (otherRow[i] != null) {
+        row[i] = otherRow[i];
+      }
     }
+    return row;
+  }
+
+  @Override
+  public void finalize(String groupKey, String[] row, Emitter<StructuredRecord> emitter) {
     StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    builder.set(conf.getKeyField(), groupKey);
-    while (iterator.hasNext()) {
-      StructuredRecord record = iterator.next();
-      String outputFieldName = record.get(nameField);
-      String outputFieldValue = record.get(valueField);
-
-      outputFieldName = outputMappings.containsKey(outputFieldName) ? outputMappings.get(outputFieldName) :
-        outputFieldName;
-      if (outputFields.contains(outputFieldName)) {
-        builder.set(outputFieldName, outputFieldValue);
+    builder.set(keyField, groupKey);
+    for (int i = 0; i < row.length; i++) {
+      if (row[i] != null) {
+        builder.set(outputFieldNames[i], row[i]);
       }
     }
     emitter.emit(builder.build());
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+/**
+ * Approximately counts the distinct values of a field with a {@link HyperLogLogPlusPlus} sketch, using memory
+ * bounded by the precision rather than by the number of distinct values.
+ * Like {@link CountDistinct}, null is counted as a distinct value.
+ */
+public class ApproxCountDistinct implements AggregateFunction<Long, ApproxCountDistinct> {
+  public static final int DEFAULT_PRECISION = 14;
+  private static final Schema SCHEMA = Schema.of(Schema.Type.LONG);
+  private static final HashFunction STRING_HASH = Hashing.murmur3_128();
+  private final String fieldName;
+  private final int precision;
+  private HyperLogLogPlusPlus sketch;
+  private boolean containsNull;
+
+  public ApproxCountDistinct(String fieldName, int precision) {
+    if (precision < HyperLogLogPlusPlus.MIN_PRECISION || precision > HyperLogLogPlusPlus.MAX_PRECISION) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid precision %d for approximate count distinct on field '%s'. It must be between %d and %d.",
+        precision, fieldName, HyperLogLogPlusPlus.MIN_PRECISION, HyperLogLogPlusPlus.MAX_PRECISION));
+    }
+    this.fieldName = fieldName;
+    this.precision = precision;
+  }
+
+  @Override
+  public void initialize() {
+    sketch = new HyperLogLogPlusPlus(precision);
+    containsNull = false;
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object value = record.get(fieldName);
+    if (value == null) {
+      containsNull = true;
+      return;
+    }
+    sketch.addHash(hash(value));
+  }
+
+  @Override
+  public void mergeAggregates(ApproxCountDistinct otherAgg) {
+    sketch.merge(otherAgg.sketch);
+    containsNull |= otherAgg.containsNull;
+  }
+
+  @Override
+  public Long getAggregate() {
+    return sketch.cardinality() + (containsNull ? 1L : 0L);
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return SCHEMA;
+  }
+
+  private static long hash(Object value) {
+    if (value instanceof Number) {
+      return mix(((Number) value).longValue());
+    }
+    if (value instanceof Boolean) {
+      return mix((Boolean) value ? 1L : 0L);
+    }
+    return STRING_HASH.hashUnencodedChars(value.toString()).asLong();
+  }
+
+  /**
+   * Finalization step of MurmurHash3, which spreads every input bit over the whole 64 bit hash.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.batch.aggregator.AggregationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimates the boundaries that split a numeric column into the given number of groups of equal size, using a
+ * {@link TDigest}. Like BigQuery's APPROX_QUANTILES, the result holds the minimum, the inner boundaries and the
+ * maximum, so it has one more element than the number of quantiles. The result is empty if every value is null.
+ */
+public class ApproxQuantiles implements AggregateFunction<List<Double>, ApproxQuantiles> {
+  public static final int DEFAULT_QUANTILES = 4;
+  private static final Schema SCHEMA = Schema.arrayOf(Schema.of(Schema.Type.DOUBLE));
+  private final String fieldName;
+  private final int quantiles;
+  private TDigest digest;
+
+  public ApproxQuantiles(String fieldName, Schema fieldSchema, int quantiles) {
+    if (quantiles < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid number of quantiles %d for field '%s'. It must be at least 1.", quantiles, fieldName));
+    }
+    this.fieldName = fieldName;
+    this.quantiles = quantiles;
+    AggregationUtils.ensureNumericType(fieldSchema, fieldName, getClass().getSimpleName());
+  }
+
+  @Override
+  public void initialize() {
+    digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object val = record.get(fieldName);
+    if (val == null) {
+      return;
+    }
+    digest.add(((Number) val).doubleValue());
+  }
+
+  @Override
+  public void mergeAggregates(ApproxQuantiles otherAgg) {
+    digest.merge(otherAgg.digest);
+  }
+
+  @Override
+  public List<Double> getAggregate() {
+    List<Double> boundaries = new ArrayList<>(quantiles + 1);
+    if (digest.getCount() == 0) {
+      return boundaries;
+    }
+    for (int i = 0; i <= quantiles; i++) {
+      boundaries.add(digest.quantile((double) i / quantiles));
+    }
+    return boundaries;
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return SCHEMA;
+  }
+}
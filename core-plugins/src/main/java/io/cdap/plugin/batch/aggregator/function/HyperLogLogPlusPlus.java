@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+/**
+ * Mergeable HyperLogLog++ cardinality sketch over 64 bit hashes.
+ *
+ * With precision p the sketch has 2^p registers, and the relative standard error of the estimate is about
+ * 1.04 / sqrt(2^p). As long as few registers are set, they are kept in a sorted sparse list instead of a dense
+ * register array, so that small groups only cost a few bytes. Small cardinalities are estimated with linear
+ * counting, which replaces the empirical bias correction tables of the original HyperLogLog++ algorithm.
+ */
+public final class HyperLogLogPlusPlus implements Externalizable {
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+
+  private int precision;
+  // sparse registers, sorted by register index and encoded as (index << 8) | rank. Only used while registers is null.
+  private int[] sparse;
+  private int sparseSize;
+  private byte[] registers;
+
+  /**
+   * Only used for deserialization.
+   */
+  public HyperLogLogPlusPlus() {
+  }
+
+  public HyperLogLogPlusPlus(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(String.format("HyperLogLog precision must be between %d and %d, but is %d.",
+                                                       MIN_PRECISION, MAX_PRECISION, precision));
+    }
+    this.precision = precision;
+    this.sparse = new int[4];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Adds a 64 bit hash of a value to the sketch.
+   */
+  public void addHash(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // the marker bit bounds the rank to 64 - precision + 1
+    int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    update(index, rank);
+  }
+
+  /**
+   * Merges the other sketch into this one.
+   *
+   * @throws IllegalArgumentException if the sketches have different precisions
+   */
+  public void merge(HyperLogLogPlusPlus other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(String.format(
+        "Cannot merge HyperLogLog sketches of precision %d and %d.", precision, other.precision));
+    }
+    if (other.registers == null) {
+      for (int i = 0; i < other.sparseSize; i++) {
+        update(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+      }
+      return;
+    }
+    toDense();
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct hashes added to the sketch
+   */
+  public long cardinality() {
+    int m = 1 << precision;
+    if (registers == null) {
+      return Math.round(linearCounting(m, m - sparseSize));
+    }
+
+    double sum = 0d;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += Math.scalb(1d, -register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    // 64 bit hashes make the large range correction of the original HyperLogLog unnecessary
+    if (zeros > 0 && estimate <= 2.5d * m) {
+      return Math.round(linearCounting(m, zeros));
+    }
+    return Math.round(estimate);
+  }
+
+  private void update(int index, int rank) {
+    if (registers != null) {
+      if (rank > registers[index]) {
+        registers[index] = (byte) rank;
+      }
+      return;
+    }
+
+    int pos = findSparse(index);
+    if (pos >= 0) {
+      if (rank > (sparse[pos] & 0xFF)) {
+        sparse[pos] = (index << 8) | rank;
+      }
+      return;
+    }
+
+    // once the sparse list would use more memory than the dense registers, switch to the dense registers
+    if (sparseSize >= (1 << precision) / 4) {
+      toDense();
+      registers[index] = (byte) rank;
+      return;
+    }
+    pos = -pos - 1;
+    if (sparseSize == sparse.length) {
+      sparse = Arrays.copyOf(sparse, sparse.length * 2);
+    }
+    System.arraycopy(sparse, pos, sparse, pos + 1, sparseSize - pos);
+    sparse[pos] = (index << 8) | rank;
+    sparseSize++;
+  }
+
+  private int findSparse(int index) {
+    int low = 0;
+    int high = sparseSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midIndex = sparse[mid] >>> 8;
+      if (midIndex < index) {
+        low = mid + 1;
+      } else if (midIndex > index) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void toDense() {
+    if (registers != null) {
+      return;
+    }
+    registers = new byte[1 << precision];
+    for (int i = 0; i < sparseSize; i++) {
+      registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  private static double linearCounting(int m, int zeros) {
+    return m * Math.log((double) m / zeros);
+  }
+
+  private static double alpha(int m) {
+    switch (m) {
+      case 16:
+        return 0.673d;
+      case 32:
+        return 0.697d;
+      case 64:
+        return 0.709d;
+      default:
+        return 0.7213d / (1d + 1.079d / m);
+    }
+  }
+
+  @Override
+  public void writeExternal(ObjectOutput out) throws IOException {
+    out.writeByte(precision);
+    out.writeBoolean(registers != null);
+    if (registers != null) {
+      out.write(registers);
+      return;
+    }
+    out.writeInt(sparseSize);
+    for (int i = 0; i < sparseSize; i++) {
+      out.writeInt(sparse[i]);
+    }
+  }
+
+  @Override
+  public void readExternal(ObjectInput in) throws IOException {
+    precision = in.readByte();
+    if (in.readBoolean()) {
+      registers = new byte[1 << precision];
+      in.readFully(registers);
+      return;
+    }
+    sparseSize = in.readInt();
+    sparse = new int[Math.max(4, sparseSize)];
+    for (int i = 0; i < sparseSize; i++) {
+      sparse[i] = in.readInt();
+    }
+  }
+}
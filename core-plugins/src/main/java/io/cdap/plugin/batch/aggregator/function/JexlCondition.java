@@ -16,28 +16,46 @@
 
 package io.cdap.plugin.batch.aggregator.function;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import org.apache.commons.jexl3.JexlBuilder;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlScript;
-import org.apache.commons.jexl3.MapContext;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
- * Class used for evaluating Jexl condition
+ * Class used for evaluating Jexl condition.
+ *
+ * Conditions are compiled once per condition string and shared by all the aggregate functions using them, in a cache
+ * that keeps the {@value #MAX_COMPILED_CONDITIONS} most recently used conditions. The variables of a condition are
+ * resolved against the schema of the first record, and are read from each record through a reusable
+ * {@link JexlContext} view of the record, so that evaluating a condition does not copy the record into a new
+ * context.
  */
 public class JexlCondition implements Condition, Serializable {
+  private static final JexlEngine ENGINE = new JexlBuilder().cache(1024).strict(true).silent(false).create();
+  private static final int MAX_COMPILED_CONDITIONS = 1024;
+  private static final LoadingCache<String, CompiledCondition> COMPILED_CONDITIONS = CacheBuilder.newBuilder()
+    .maximumSize(MAX_COMPILED_CONDITIONS)
+    .build(new CacheLoader<String, CompiledCondition>() {
+      @Override
+      public CompiledCondition load(String condition) {
+        return new CompiledCondition(ENGINE.createScript(condition));
+      }
+    });
 
   private final String condition;
-  private transient JexlEngine engine;
-  private transient JexlScript script;
+  private transient RecordContext context;
 
   private JexlCondition(String condition) {
     this.condition = condition;
@@ -45,16 +63,12 @@ public class JexlCondition implements Condition, Serializable {
 
   @Override
   public boolean apply(StructuredRecord record) {
-    JexlScript script = getScript();
-    Set<List<String>> variables = script.getVariables();
-    JexlContext context = new MapContext();
-
-    for (List<String> variable : variables) {
-      Object value = getValue(record, variable);
-      context.set(variable.stream().collect(Collectors.joining(".")), value);
+    RecordContext context = this.context;
+    if (context == null) {
+      context = new RecordContext(compile(condition));
+      this.context = context;
     }
-
-    Object result = this.script.execute(context);
+    Object result = context.evaluate(record);
 
     if (result instanceof Boolean) {
       return (boolean) result;
@@ -63,45 +77,13 @@ public class JexlCondition implements Condition, Serializable {
     }
   }
 
-  /**
-   * Return value of a field from a record based on provided path
-   *
-   * @param record {@link StructuredRecord}
-   * @param path   path to a field in record
-   * @return {@link Object} value of a field in record
-   */
-  private Object getValue(StructuredRecord record, List<String> path) {
-    StructuredRecord structuredRecord = record;
-    Iterator<String> iterator = path.iterator();
-    Object value = null;
-    Schema.Field field = null;
-    while (iterator.hasNext()) {
-      field = structuredRecord.getSchema().getField(iterator.next());
-      if (field == null) {
-        throw new IllegalArgumentException("Field provided in condition is not in input schema.");
-      }
-      if (field.getSchema().getType().equals(Schema.Type.RECORD)) {
-        structuredRecord = structuredRecord.get(field.getName());
-      } else {
-        value = structuredRecord.get(field.getName());
-      }
+  private static CompiledCondition compile(String condition) {
+    try {
+      return COMPILED_CONDITIONS.getUnchecked(condition);
+    } catch (UncheckedExecutionException e) {
+      // rethrow the parsing error as is
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
     }
-    return value;
-  }
-
-  /**
-   * Generates JexlScript containing condition
-   *
-   * @return {@link JexlScript}
-   */
-  private synchronized JexlScript getScript() {
-    if (engine == null) {
-      engine = new JexlBuilder().cache(1024).strict(true).silent(false).create();
-    }
-    if (script == null) {
-      script = engine.createScript(condition);
-    }
-    return script;
   }
 
   /**
@@ -121,9 +103,110 @@ public class JexlCondition implements Condition, Serializable {
    * @return set of lists representing full path of each variable
    */
   public static Set<List<String>> getVariables(String condition) {
-    JexlEngine engine = new JexlBuilder().cache(1024).strict(true).silent(false).create();
-    JexlScript script = engine.createScript(condition);
+    return compile(condition).script.getVariables();
+  }
+
+  /**
+   * A parsed condition with the paths of its variables. Immutable apart from the schema it was last resolved
+   * against, so it can be shared between threads.
+   */
+  private static final class CompiledCondition {
+    private final JexlScript script;
+    // variable name, as used by the script, to the index of its path
+    private final Map<String, Integer> variableIndexes;
+    private final String[][] paths;
+    private volatile Schema resolvedSchema;
+
+    private CompiledCondition(JexlScript script) {
+      this.script = script;
+      Set<List<String>> variables = script.getVariables();
+      this.variableIndexes = new HashMap<>();
+      this.paths = new String[variables.size()][];
+      int index = 0;
+      for (List<String> variable : variables) {
+        variableIndexes.put(String.join(".", variable), index);
+        paths[index++] = variable.toArray(new String[0]);
+      }
+    }
 
-    return script.getVariables();
+    /**
+     * Checks that every variable of the condition is a field of the given schema.
+     */
+    private void resolve(Schema schema) {
+      Schema resolved = resolvedSchema;
+      if (resolved == schema || schema.equals(resolved)) {
+        return;
+      }
+      for (String[] path : paths) {
+        Schema recordSchema = schema;
+        for (int i = 0; i < path.length; i++) {
+          Schema.Field field = recordSchema == null ? null : recordSchema.getField(path[i]);
+          if (field == null) {
+            throw new IllegalArgumentException("Field provided in condition is not in input schema.");
+          }
+          Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+          recordSchema = fieldSchema.getType() == Schema.Type.RECORD ? fieldSchema : null;
+        }
+      }
+      resolvedSchema = schema;
+    }
+
+    private Object getValue(StructuredRecord record, int index) {
+      String[] path = paths[index];
+      StructuredRecord current = record;
+      for (int i = 0; i < path.length - 1; i++) {
+        current = current.get(path[i]);
+        if (current == null) {
+          return null;
+        }
+      }
+      return current.get(path[path.length - 1]);
+    }
+  }
+
+  /**
+   * {@link JexlContext} view of the record the condition is evaluated on. Values are read from the record when
+   * the script asks for them.
+   */
+  private static final class RecordContext implements JexlContext {
+    private final CompiledCondition compiled;
+    private StructuredRecord record;
+    // variables assigned by the script, only live while evaluating a single record
+    private Map<String, Object> assigned;
+
+    private RecordContext(CompiledCondition compiled) {
+      this.compiled = compiled;
+    }
+
+    private Object evaluate(StructuredRecord record) {
+      compiled.resolve(record.getSchema());
+      this.record = record;
+      if (assigned != null) {
+        assigned.clear();
+      }
+      return compiled.script.execute(this);
+    }
+
+    @Override
+    public Object get(String name) {
+      if (assigned != null && assigned.containsKey(name)) {
+        return assigned.get(name);
+      }
+      Integer index = compiled.variableIndexes.get(name);
+      return index == null ? null : compiled.getValue(record, index);
+    }
+
+    @Override
+    public void set(String name, Object value) {
+      if (assigned == null) {
+        assigned = new HashMap<>();
+      }
+      assigned.put(name, value);
+    }
+
+    @Override
+    public boolean has(String name) {
+      return compiled.variableIndexes.containsKey(name) || (assigned != null && assigned.containsKey(name));
+    }
   }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Assigns every {@link NumericSlot} of an aggregation a fixed range of the long and double slabs of a
+ * {@link NumericAggregateState}, and applies the slots to those states. Merging values and states only touches
+ * the slabs, nothing is allocated per record or per merge.
+ */
+public final class NumericAggregateLayout {
+  private final NumericSlot[] slots;
+  private final int numLongs;
+  private final int numDoubles;
+
+  public NumericAggregateLayout(List<NumericSlot> slots) {
+    this.slots = slots.toArray(new NumericSlot[0]);
+    int longOffset = 0;
+    int doubleOffset = 0;
+    for (NumericSlot slot : this.slots) {
+      slot.bind(longOffset, doubleOffset);
+      longOffset += slot.getNumLongs();
+      doubleOffset += slot.getNumDoubles();
+    }
+    this.numLongs = longOffset;
+    this.numDoubles = doubleOffset;
+  }
+
+  /**
+   * @return number of slots in this layout
+   */
+  public int size() {
+    return slots.length;
+  }
+
+  /**
+   * @return a new, initialized state
+   */
+  public NumericAggregateState newState() {
+    return new NumericAggregateState(numLongs, numDoubles);
+  }
+
+  /**
+   * Merges the given record into every slot of the state.
+   */
+  public void mergeValue(NumericAggregateState state, StructuredRecord record) {
+    long[] longs = state.getLongs();
+    double[] doubles = state.getDoubles();
+    for (NumericSlot slot : slots) {
+      slot.mergeValue(record, longs, doubles);
+    }
+  }
+
+  /**
+   * Merges the other state into the state, the result is stored in the first state.
+   */
+  public void merge(NumericAggregateState state, NumericAggregateState other) {
+    long[] longs = state.getLongs();
+    double[] doubles = state.getDoubles();
+    long[] otherLongs = other.getLongs();
+    double[] otherDoubles = other.getDoubles();
+    for (NumericSlot slot : slots) {
+      slot.merge(longs, doubles, otherLongs, otherDoubles);
+    }
+  }
+
+  /**
+   * @return the aggregate value of the slot at the given index
+   */
+  @Nullable
+  public Object getAggregate(int index, NumericAggregateState state) {
+    return slots[index].getAggregate(state.getLongs(), state.getDoubles());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * State of all numeric aggregate functions of a single group, stored as one long slab and one double slab.
+ * Each function owns a fixed range of slots in both arrays, as assigned by a {@link NumericAggregateLayout}.
+ * Serialized as the raw slab contents, without any per-function object overhead.
+ */
+public final class NumericAggregateState implements Externalizable {
+  private long[] longs;
+  private double[] doubles;
+
+  /**
+   * Only used for deserialization.
+   */
+  public NumericAggregateState() {
+  }
+
+  NumericAggregateState(int numLongs, int numDoubles) {
+    this.longs = new long[numLongs];
+    this.doubles = new double[numDoubles];
+  }
+
+  long[] getLongs() {
+    return longs;
+  }
+
+  double[] getDoubles() {
+    return doubles;
+  }
+
+  @Override
+  public void writeExternal(ObjectOutput out) throws IOException {
+    out.writeInt(longs.length);
+    for (long value : longs) {
+      out.writeLong(value);
+    }
+    out.writeInt(doubles.length);
+    for (double value : doubles) {
+      out.writeDouble(value);
+    }
+  }
+
+  @Override
+  public void readExternal(ObjectInput in) throws IOException {
+    longs = new long[in.readInt()];
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = in.readLong();
+    }
+    doubles = new double[in.readInt()];
+    for (int i = 0; i < doubles.length; i++) {
+      doubles[i] = in.readDouble();
+    }
+  }
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import javax.annotation.Nullable;
+
+/**
+ * A numeric aggregate function that keeps its state in a range of slots of a {@link NumericAggregateState}
+ * instead of in its own fields. A slot is stateless itself, one instance serves every group.
+ * All slots start out as zero, so a freshly allocated state is an initialized state.
+ *
+ * The results are the same as the ones of the corresponding {@link AggregateFunction}, including the integer
+ * overflow and float precision behavior of {@link Sum}.
+ */
+public abstract class NumericSlot {
+  protected final String fieldName;
+  protected int longOffset;
+  protected int doubleOffset;
+
+  private NumericSlot(String fieldName) {
+    this.fieldName = fieldName;
+  }
+
+  /**
+   * @return the slot for count(field)
+   */
+  public static NumericSlot count(String fieldName) {
+    return new CountSlot(fieldName, false);
+  }
+
+  /**
+   * @return the slot for count(*)
+   */
+  public static NumericSlot countAll() {
+    return new CountSlot("*", true);
+  }
+
+  /**
+   * @return the slot for sum(field)
+   */
+  public static NumericSlot sum(String fieldName, Schema fieldSchema) {
+    return new CombiningSlot(fieldName, fieldSchema) {
+      @Override
+      long combine(long current, long value) {
+        return fieldType == Schema.Type.INT ? (int) (current + value) : current + value;
+      }
+
+      @Override
+      double combine(double current, double value) {
+        return fieldType == Schema.Type.FLOAT ? (float) current + (float) value : current + value;
+      }
+    };
+  }
+
+  /**
+   * @return the slot for min(field)
+   */
+  public static NumericSlot min(String fieldName, Schema fieldSchema) {
+    return new CombiningSlot(fieldName, fieldSchema) {
+      @Override
+      long combine(long current, long value) {
+        return Math.min(current, value);
+      }
+
+      @Override
+      double combine(double current, double value) {
+        return Math.min(current, value);
+      }
+    };
+  }
+
+  /**
+   * @return the slot for max(field)
+   */
+  public static NumericSlot max(String fieldName, Schema fieldSchema) {
+    return new CombiningSlot(fieldName, fieldSchema) {
+      @Override
+      long combine(long current, long value) {
+        return Math.max(current, value);
+      }
+
+      @Override
+      double combine(double current, double value) {
+        return Math.max(current, value);
+      }
+    };
+  }
+
+  /**
+   * @return the slot for avg(field)
+   */
+  public static NumericSlot avg(String fieldName) {
+    return new AvgSlot(fieldName);
+  }
+
+  /**
+   * @return the slot for variance(field)
+   */
+  public static NumericSlot variance(String fieldName) {
+    return new VarianceSlot(fieldName, false);
+  }
+
+  /**
+   * @return the slot for stddev(field)
+   */
+  public static NumericSlot stddev(String fieldName) {
+    return new VarianceSlot(fieldName, true);
+  }
+
+  /**
+   * Assigns the slot ranges of this function in the state slabs.
+   */
+  void bind(int longOffset, int doubleOffset) {
+    this.longOffset = longOffset;
+    this.doubleOffset = doubleOffset;
+  }
+
+  /**
+   * @return number of long slots used by this function
+   */
+  abstract int getNumLongs();
+
+  /**
+   * @return number of double slots used by this function
+   */
+  abstract int getNumDoubles();
+
+  /**
+   * Merges the given record into the state.
+   */
+  abstract void mergeValue(StructuredRecord record, long[] longs, double[] doubles);
+
+  /**
+   * Merges the other state into the state.
+   */
+  abstract void merge(long[] longs, double[] doubles, long[] otherLongs, double[] otherDoubles);
+
+  /**
+   * @return the aggregate value of the state
+   */
+  @Nullable
+  abstract Object getAggregate(long[] longs, double[] doubles);
+
+  /**
+   * Count and count(*), one long slot holding the count.
+   */
+  private static final class CountSlot extends NumericSlot {
+    private final boolean countAll;
+
+    private CountSlot(String fieldName, boolean countAll) {
+      super(fieldName);
+      this.countAll = countAll;
+    }
+
+    @Override
+    int getNumLongs() {
+      return 1;
+    }
+
+    @Override
+    int getNumDoubles() {
+      return 0;
+    }
+
+    @Override
+    void mergeValue(StructuredRecord record, long[] longs, double[] doubles) {
+      if (countAll || record.get(fieldName) != null) {
+        longs[longOffset]++;
+      }
+    }
+
+    @Override
+    void merge(long[] longs, double[] doubles, long[] otherLongs, double[] otherDoubles) {
+      longs[longOffset] += otherLongs[longOffset];
+    }
+
+    @Override
+    Object getAggregate(long[] longs, double[] doubles) {
+      return longs[longOffset];
+    }
+  }
+
+  /**
+   * Functions that fold every value into a single value of the field type, such as sum, min and max.
+   * The first long slot flags whether any value was seen. Integral values are kept in the second long slot,
+   * floating point values in the double slot.
+   */
+  private abstract static class CombiningSlot extends NumericSlot {
+    protected final Schema.Type fieldType;
+    private final boolean integral;
+
+    private CombiningSlot(String fieldName, Schema fieldSchema) {
+      super(fieldName);
+      this.fieldType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+      this.integral = fieldType == Schema.Type.INT || fieldType == Schema.Type.LONG;
+    }
+
+    abstract long combine(long current, long value);
+
+    abstract double combine(double current, double value);
+
+    @Override
+    int getNumLongs() {
+      return integral ? 2 : 1;
+    }
+
+    @Override
+    int getNumDoubles() {
+      return integral ? 0 : 1;
+    }
+
+    @Override
+    void mergeValue(StructuredRecord record, long[] longs, double[] doubles) {
+      Number value = record.get(fieldName);
+      if (value == null) {
+        return;
+      }
+      if (integral) {
+        combineLong(longs, value.longValue());
+      } else {
+        combineDouble(longs, doubles, value.doubleValue());
+      }
+    }
+
+    @Override
+    void merge(long[] longs, double[] doubles, long[] otherLongs, double[] otherDoubles) {
+      if (otherLongs[longOffset] == 0L) {
+        return;
+      }
+      if (integral) {
+        combineLong(longs, otherLongs[longOffset + 1]);
+      } else {
+        combineDouble(longs, doubles, otherDoubles[doubleOffset]);
+      }
+    }
+
+    private void combineLong(long[] longs, long value) {
+      if (longs[longOffset] == 0L) {
+        longs[longOffset] = 1L;
+        longs[longOffset + 1] = value;
+        return;
+      }
+      longs[longOffset + 1] = combine(longs[longOffset + 1], value);
+    }
+
+    private void combineDouble(long[] longs, double[] doubles, double value) {
+      if (longs[longOffset] == 0L) {
+        longs[longOffset] = 1L;
+        doubles[doubleOffset] = value;
+        return;
+      }
+      doubles[doubleOffset] = combine(doubles[doubleOffset], value);
+    }
+
+    @Nullable
+    @Override
+    Object getAggregate(long[] longs, double[] doubles) {
+      if (longs[longOffset] == 0L) {
+        return null;
+      }
+      switch (fieldType) {
+        case INT:
+          return (int) longs[longOffset + 1];
+        case LONG:
+          return longs[longOffset + 1];
+        case FLOAT:
+          return (float) doubles[doubleOffset];
+        default:
+          return doubles[doubleOffset];
+      }
+    }
+  }
+
+  /**
+   * Average, one long slot holding the count and one double slot holding the running average.
+   */
+  private static final class AvgSlot extends NumericSlot {
+
+    private AvgSlot(String fieldName) {
+      super(fieldName);
+    }
+
+    @Override
+    int getNumLongs() {
+      return 1;
+    }
+
+    @Override
+    int getNumDoubles() {
+      return 1;
+    }
+
+    @Override
+    void mergeValue(StructuredRecord record, long[] longs, double[] doubles) {
+      Number value = record.get(fieldName);
+      if (value == null) {
+        return;
+      }
+      computeAvg(longs, doubles, 1L, value.doubleValue());
+    }
+
+    @Override
+    void merge(long[] longs, double[] doubles, long[] otherLongs, double[] otherDoubles) {
+      computeAvg(longs, doubles, otherLongs[longOffset], otherDoubles[doubleOffset]);
+    }
+
+    private void computeAvg(long[] longs, double[] doubles, long deltaCount, double otherAvg) {
+      if (deltaCount == 0L) {
+        return;
+      }
+      long count = longs[longOffset] += deltaCount;
+      double avg = doubles[doubleOffset];
+      doubles[doubleOffset] = avg + (otherAvg - avg) * deltaCount / count;
+    }
+
+    @Nullable
+    @Override
+    Object getAggregate(long[] longs, double[] doubles) {
+      return longs[longOffset] == 0L ? null : doubles[doubleOffset];
+    }
+  }
+
+  /**
+   * Variance and standard deviation, one long slot holding the count and two double slots holding the mean and the
+   * sum of the squared differences from the mean. Updated exactly like a {@link RunningVariance}.
+   */
+  private static final class VarianceSlot extends NumericSlot {
+    private final boolean stddev;
+
+    private VarianceSlot(String fieldName, boolean stddev) {
+      super(fieldName);
+      this.stddev = stddev;
+    }
+
+    @Override
+    int getNumLongs() {
+      return 1;
+    }
+
+    @Override
+    int getNumDoubles() {
+      return 2;
+    }
+
+    @Override
+    void mergeValue(StructuredRecord record, long[] longs, double[] doubles) {
+      Number number = record.get(fieldName);
+      if (number == null) {
+        return;
+      }
+      double value = number.doubleValue();
+      long count = ++longs[longOffset];
+      double delta = value - doubles[doubleOffset];
+      double mean = doubles[doubleOffset] += delta / count;
+      doubles[doubleOffset + 1] += delta * (value - mean);
+    }
+
+    @Override
+    void merge(long[] longs, double[] doubles, long[] otherLongs, double[] otherDoubles) {
+      long otherCount = otherLongs[longOffset];
+      if (otherCount == 0L) {
+        return;
+      }
+      long count = longs[longOffset];
+      if (count == 0L) {
+        longs[longOffset] = otherCount;
+        System.arraycopy(otherDoubles, doubleOffset, doubles, doubleOffset, 2);
+        return;
+      }
+
+      long total = longs[longOffset] = count + otherCount;
+      double delta = otherDoubles[doubleOffset] - doubles[doubleOffset];
+      doubles[doubleOffset] += delta * otherCount / total;
+      doubles[doubleOffset + 1] += otherDoubles[doubleOffset + 1]
+        + delta * delta * ((double) count * otherCount / total);
+    }
+
+    @Nullable
+    @Override
+    Object getAggregate(long[] longs, double[] doubles) {
+      if (longs[longOffset] == 0L) {
+        return null;
+      }
+      double variance = doubles[doubleOffset + 1] / longs[longOffset];
+      return stddev ? Math.sqrt(variance) : variance;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.batch.aggregator.AggregationUtils;
+
+/**
+ * Estimates a percentile of a numeric column with a {@link TDigest}, using memory bounded by the compression of the
+ * digest rather than by the number of values. The percentile is exact for small groups, and is interpolated between
+ * neighbouring values like SQL's PERCENTILE_CONT.
+ */
+public class Percentile implements AggregateFunction<Double, Percentile> {
+  private final String fieldName;
+  private final double percentile;
+  private final Schema outputSchema;
+  private TDigest digest;
+
+  /**
+   * @param percentile the percentile to compute, as a fraction between 0 and 1
+   */
+  public Percentile(String fieldName, Schema fieldSchema, double percentile) {
+    if (Double.isNaN(percentile) || percentile < 0d || percentile > 1d) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid percentile %s for field '%s'. It must be between 0 and 1.", percentile, fieldName));
+    }
+    this.fieldName = fieldName;
+    this.percentile = percentile;
+    AggregationUtils.ensureNumericType(fieldSchema, fieldName, getClass().getSimpleName());
+    // the percentile is null only if the field value is always null
+    outputSchema = fieldSchema.isNullable() ? Schema.nullableOf(Schema.of(Schema.Type.DOUBLE)) :
+      Schema.of(Schema.Type.DOUBLE);
+  }
+
+  @Override
+  public void initialize() {
+    digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object val = record.get(fieldName);
+    if (val == null) {
+      return;
+    }
+    digest.add(((Number) val).doubleValue());
+  }
+
+  @Override
+  public void mergeAggregates(Percentile otherAgg) {
+    digest.merge(otherAgg.digest);
+  }
+
+  @Override
+  public Double getAggregate() {
+    // this only happens when every value is null
+    if (digest.getCount() == 0) {
+      return null;
+    }
+    return digest.quantile(percentile);
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return outputSchema;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Serializable;
+
+/**
+ * Computes the mean and variance of numbers in a single pass, without the skewness and kurtosis terms of
+ * {@link RunningStats}. Values are added with Welford's update, and other accumulators are combined with Chan's
+ * parallel algorithm, which are both numerically stable.
+ * https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+ */
+public final class RunningVariance implements Serializable {
+  private long count;
+  private double mean;
+  // sum of the squared differences from the mean
+  private double m2;
+
+  /**
+   * Adds a number.
+   */
+  public void push(double value) {
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+  }
+
+  /**
+   * Merges the numbers of the other accumulator into this one.
+   */
+  public void merge(RunningVariance other) {
+    merge(other.count, other.mean, other.m2);
+  }
+
+  private void merge(long otherCount, double otherMean, double otherM2) {
+    if (otherCount == 0L) {
+      return;
+    }
+    if (count == 0L) {
+      count = otherCount;
+      mean = otherMean;
+      m2 = otherM2;
+      return;
+    }
+    long total = count + otherCount;
+    double delta = otherMean - mean;
+    mean += delta * otherCount / total;
+    m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+    count = total;
+  }
+
+  /**
+   * @return number of numbers added
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @return mean of all numbers, 0 if there are none
+   */
+  public double mean() {
+    return mean;
+  }
+
+  /**
+   * @return population variance of all numbers, 0 if there are none
+   */
+  public double variance() {
+    return count == 0L ? 0d : m2 / count;
+  }
+
+  /**
+   * @return population standard deviation of all numbers, 0 if there are none
+   */
+  public double stddev() {
+    return Math.sqrt(variance());
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Mergeable quantile sketch based on the merging t-digest.
+ *
+ * Values are summarized as centroids (mean and weight) sorted by mean. Centroids near the median may absorb many
+ * values, while centroids near the tails stay small, which keeps extreme quantiles accurate. The number of
+ * centroids is bounded by the compression, independent of the number of values. As long as fewer than about
+ * compression / pi values have been added, every value is its own centroid and quantiles are exact.
+ */
+public final class TDigest implements Externalizable {
+  public static final double DEFAULT_COMPRESSION = 100d;
+  // arrays start small and grow as values are added, so that small groups stay small
+  private static final int INITIAL_CAPACITY = 8;
+
+  private double compression;
+  private double[] means;
+  private double[] weights;
+  private int size;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  // values added since the last compression, each of weight 1
+  private double[] buffer;
+  private int bufferSize;
+  // the buffer grows up to this size before it is compressed
+  private int maxBufferSize;
+
+  /**
+   * Only used for deserialization.
+   */
+  public TDigest() {
+  }
+
+  public TDigest(double compression) {
+    this.compression = compression;
+    this.means = new double[INITIAL_CAPACITY];
+    this.weights = new double[INITIAL_CAPACITY];
+    this.buffer = new double[INITIAL_CAPACITY];
+    this.maxBufferSize = maxBufferSize(compression);
+  }
+
+  private static int maxBufferSize(double compression) {
+    return ((int) Math.ceil(compression) * 2 + 10) * 4;
+  }
+
+  /**
+   * Adds a value to the digest.
+   */
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (bufferSize == buffer.length) {
+      if (buffer.length < maxBufferSize) {
+        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxBufferSize));
+      } else {
+        compress(null);
+      }
+    }
+    buffer[bufferSize++] = value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Merges the other digest into this one.
+   */
+  public void merge(TDigest other) {
+    if (other.getCount() == 0) {
+      return;
+    }
+    other.compress(null);
+    compress(other);
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * @return total number of values added to the digest
+   */
+  public long getCount() {
+    return Math.round(totalWeight) + bufferSize;
+  }
+
+  /**
+   * Estimates the value at the given quantile, interpolating between centroids.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return the estimated value at the quantile, or NaN if the digest is empty
+   */
+  public double quantile(double quantile) {
+    compress(null);
+    if (size == 0) {
+      return Double.NaN;
+    }
+    if (size == 1) {
+      return means[0];
+    }
+
+    // like PERCENTILE_CONT, the values are placed at positions 0 to count - 1, and each centroid is centered on the
+    // middle of the positions it covers
+    double target = quantile * (totalWeight - 1);
+    double firstCenter = (weights[0] - 1) / 2;
+    if (target <= firstCenter) {
+      return interpolate(min, means[0], target, firstCenter);
+    }
+    double cumulative = 0d;
+    for (int i = 0; i < size - 1; i++) {
+      double center = cumulative + (weights[i] - 1) / 2;
+      double nextCenter = cumulative + weights[i] + (weights[i + 1] - 1) / 2;
+      if (target <= nextCenter) {
+        return interpolate(means[i], means[i + 1], target - center, nextCenter - center);
+      }
+      cumulative += weights[i];
+    }
+    double lastCenter = cumulative + (weights[size - 1] - 1) / 2;
+    return interpolate(means[size - 1], max, target - lastCenter, totalWeight - 1 - lastCenter);
+  }
+
+  private static double interpolate(double from, double to, double offset, double distance) {
+    if (distance <= 0d) {
+      return offset <= 0d ? from : to;
+    }
+    return from + (to - from) * Math.max(0d, Math.min(1d, offset / distance));
+  }
+
+  /**
+   * Merges the buffered values, and the centroids of the other digest if given, into the centroids.
+   */
+  private void compress(TDigest other) {
+    int otherSize = other == null ? 0 : other.size;
+    if (bufferSize == 0 && otherSize == 0) {
+      return;
+    }
+
+    // centroids are kept sorted by mean, so only the buffered values need sorting before they are merged in
+    Arrays.sort(buffer, 0, bufferSize);
+    int count = size + bufferSize;
+    double[] allMeans = new double[count];
+    double[] allWeights = new double[count];
+    mergeByMean(means, weights, size, buffer, null, bufferSize, allMeans, allWeights);
+    if (other != null) {
+      double[] ownMeans = allMeans;
+      double[] ownWeights = allWeights;
+      count += otherSize;
+      allMeans = new double[count];
+      allWeights = new double[count];
+      mergeByMean(ownMeans, ownWeights, ownMeans.length, other.means, other.weights, otherSize, allMeans, allWeights);
+    }
+
+    double total = totalWeight + bufferSize + (other == null ? 0d : other.totalWeight);
+    size = 0;
+    double cumulative = 0d;
+    double quantileLimit = quantileLimit(0d);
+    double mean = allMeans[0];
+    double weight = allWeights[0];
+    for (int i = 1; i < count; i++) {
+      double proposed = weight + allWeights[i];
+      if ((cumulative + proposed) / total <= quantileLimit) {
+        mean += (allMeans[i] - mean) * allWeights[i] / proposed;
+        weight = proposed;
+      } else {
+        append(mean, weight);
+        cumulative += weight;
+        quantileLimit = quantileLimit(cumulative / total);
+        mean = allMeans[i];
+        weight = allWeights[i];
+      }
+    }
+    append(mean, weight);
+    totalWeight = total;
+    bufferSize = 0;
+  }
+
+  /**
+   * Returns the largest quantile that a centroid starting at the given quantile may extend to. Centroids cover one
+   * unit of the arcsine scale function k(q) = compression / (2 * pi) * asin(2q - 1), which is steep near the tails,
+   * so that centroids near the tails hold few values, and which bounds the number of centroids by the compression.
+   */
+  private double quantileLimit(double quantile) {
+    double k = compression / (2 * Math.PI) * Math.asin(2 * quantile - 1) + 1;
+    if (k >= compression / 4) {
+      return 1d;
+    }
+    return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+  }
+
+  private void append(double mean, double weight) {
+    if (size == means.length) {
+      // the number of centroids is bounded by the compression, so the arrays stop growing once they hold that many
+      int capacity = Math.max(size + 1, Math.min(size * 2, (int) Math.ceil(compression) * 2 + 10));
+      means = Arrays.copyOf(means, capacity);
+      weights = Arrays.copyOf(weights, capacity);
+    }
+    means[size] = mean;
+    weights[size] = weight;
+    size++;
+  }
+
+  /**
+   * Merges two sequences of centroids sorted by mean into the given arrays. The second sequence has a weight of 1 per
+   * value if it has no weights.
+   */
+  private static void mergeByMean(double[] means1, double[] weights1, int size1, double[] means2,
+                                  @Nullable double[] weights2, int size2, double[] mergedMeans,
+                                  double[] mergedWeights) {
+    int i = 0;
+    int j = 0;
+    for (int n = 0; n < size1 + size2; n++) {
+      if (j == size2 || (i < size1 && means1[i] <= means2[j])) {
+        mergedMeans[n] = means1[i];
+        mergedWeights[n] = weights1[i++];
+      } else {
+        mergedMeans[n] = means2[j];
+        mergedWeights[n] = weights2 == null ? 1d : weights2[j];
+        j++;
+      }
+    }
+  }
+
+  @Override
+  public void writeExternal(ObjectOutput out) throws IOException {
+    compress(null);
+    out.writeDouble(compression);
+    out.writeDouble(min);
+    out.writeDouble(max);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeDouble(means[i]);
+      out.writeDouble(weights[i]);
+    }
+  }
+
+  @Override
+  public void readExternal(ObjectInput in) throws IOException {
+    compression = in.readDouble();
+    min = in.readDouble();
+    max = in.readDouble();
+    size = in.readInt();
+    int capacity = Math.max(size, INITIAL_CAPACITY);
+    means = new double[capacity];
+    weights = new double[capacity];
+    buffer = new double[INITIAL_CAPACITY];
+    maxBufferSize = maxBufferSize(compression);
+    for (int i = 0; i < size; i++) {
+      means[i] = in.readDouble();
+      weights[i] = in.readDouble();
+      totalWeight += weights[i];
+    }
+  }
+}
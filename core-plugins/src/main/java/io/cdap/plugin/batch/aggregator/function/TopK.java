@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the k most frequent values of a column, ordered from the most to the least frequent. Null values are ignored.
+ *
+ * Values are counted in a Misra-Gries frequent items summary with a capacity of {@link #CAPACITY_PER_ITEM} times k
+ * counters, and at least 64. Once there are more than twice that many counters, all counters are decreased by the
+ * count of the largest counter past the capacity, and the counters that drop to zero are removed. Counts are
+ * therefore underestimated by at most the number of values divided by the capacity, so values that are frequent
+ * enough are always found, and the result is exact if the group has few enough distinct values. Summaries of
+ * different partitions are merged by adding up their counters and reducing them in the same way. Bytes values are
+ * counted by their content.
+ *
+ * @param <T> type of the values
+ */
+public class TopK<T> implements AggregateFunction<List<T>, TopK<T>> {
+  public static final int DEFAULT_K = 10;
+  static final int CAPACITY_PER_ITEM = 8;
+  private final String fieldName;
+  private final Schema fieldSchema;
+  private final int k;
+  private final int capacity;
+  private Map<Object, long[]> counts;
+
+  public TopK(String fieldName, Schema fieldSchema, int k) {
+    if (k < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid k %d for top k of field '%s'. It must be at least 1.", k, fieldName));
+    }
+    this.fieldName = fieldName;
+    this.fieldSchema = fieldSchema;
+    this.k = k;
+    this.capacity = Math.max(64, k * CAPACITY_PER_ITEM);
+  }
+
+  @Override
+  public void initialize() {
+    counts = new HashMap<>();
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object value = record.get(fieldName);
+    if (value == null) {
+      return;
+    }
+    add(TopKValues.wrap(value), 1L);
+  }
+
+  @Override
+  public void mergeAggregates(TopK<T> otherAgg) {
+    for (Map.Entry<Object, long[]> entry : otherAgg.counts.entrySet()) {
+      add(entry.getKey(), entry.getValue()[0]);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<T> getAggregate() {
+    List<Map.Entry<Object, long[]>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort(TopK::compareEntries);
+    List<T> result = new ArrayList<>(Math.min(k, entries.size()));
+    for (int i = 0; i < k && i < entries.size(); i++) {
+      result.add((T) TopKValues.unwrap(entries.get(i).getKey()));
+    }
+    return result;
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return Schema.arrayOf(fieldSchema);
+  }
+
+  private void add(Object value, long count) {
+    long[] current = counts.get(value);
+    if (current != null) {
+      current[0] += count;
+      return;
+    }
+    counts.put(value, new long[] { count });
+    if (counts.size() > 2 * capacity) {
+      purge();
+    }
+  }
+
+  /**
+   * Decreases all counters by the count of the largest counter past the capacity, which leaves at most capacity
+   * counters.
+   */
+  private void purge() {
+    long[] sorted = new long[counts.size()];
+    int i = 0;
+    for (long[] count : counts.values()) {
+      sorted[i++] = count[0];
+    }
+    Arrays.sort(sorted);
+    long decrement = sorted[sorted.length - capacity - 1];
+    counts.values().removeIf(count -> (count[0] -= decrement) <= 0);
+  }
+
+  /**
+   * Orders entries by descending count. Ties are ordered by value, so that the result does not depend on how the
+   * values were partitioned.
+   */
+  private static int compareEntries(Map.Entry<Object, long[]> entry1, Map.Entry<Object, long[]> entry2) {
+    int comparison = Long.compare(entry2.getValue()[0], entry1.getValue()[0]);
+    return comparison != 0 ? comparison : TopKValues.compare(entry1.getKey(), entry2.getKey());
+  }
+}
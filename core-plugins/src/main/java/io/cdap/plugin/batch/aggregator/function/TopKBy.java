@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the values of a column in the k records with the largest values of another column, ordered from the
+ * largest to the smallest value of the other column. Records where either column is null are ignored.
+ *
+ * The k records are kept in a min-heap on the order column, so memory is bounded by k no matter how large the group
+ * is. When several records have the same order value, the one with the smallest value is kept, so that the result
+ * does not depend on how the records were partitioned.
+ *
+ * @param <T> type of the values
+ */
+public class TopKBy<T> implements AggregateFunction<List<T>, TopKBy<T>> {
+  private final String fieldName;
+  private final Schema fieldSchema;
+  private final String orderFieldName;
+  private final int k;
+  private PriorityQueue<Entry> heap;
+
+  public TopKBy(String fieldName, Schema fieldSchema, String orderFieldName, int k) {
+    if (k < 1) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid k %d for top k of field '%s'. It must be at least 1.", k, fieldName));
+    }
+    this.fieldName = fieldName;
+    this.fieldSchema = fieldSchema;
+    this.orderFieldName = orderFieldName;
+    this.k = k;
+  }
+
+  @Override
+  public void initialize() {
+    heap = new PriorityQueue<>(k, new EntryComparator());
+  }
+
+  @Override
+  public void mergeValue(StructuredRecord record) {
+    Object value = record.get(fieldName);
+    Object order = record.get(orderFieldName);
+    if (value == null || order == null) {
+      return;
+    }
+    if (!(order instanceof Comparable)) {
+      throw new IllegalArgumentException(String.format(
+        "Field '%s' cannot be used to order the top k of field '%s' because its values are not comparable.",
+        orderFieldName, fieldName));
+    }
+    offer(new Entry((Comparable) order, TopKValues.wrap(value)));
+  }
+
+  @Override
+  public void mergeAggregates(TopKBy<T> otherAgg) {
+    for (Entry entry : otherAgg.heap) {
+      offer(entry);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<T> getAggregate() {
+    List<Entry> entries = new ArrayList<>(heap);
+    entries.sort(new EntryComparator().reversed());
+    List<T> result = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      result.add((T) TopKValues.unwrap(entry.value));
+    }
+    return result;
+  }
+
+  @Override
+  public Schema getOutputSchema() {
+    return Schema.arrayOf(fieldSchema);
+  }
+
+  private void offer(Entry entry) {
+    if (heap.size() < k) {
+      heap.add(entry);
+    } else if (heap.comparator().compare(entry, heap.peek()) > 0) {
+      heap.poll();
+      heap.add(entry);
+    }
+  }
+
+  /**
+   * A value with the order value of its record.
+   */
+  private static final class Entry implements Serializable {
+    private final Comparable order;
+    private final Object value;
+
+    private Entry(Comparable order, Object value) {
+      this.order = order;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Orders entries by their order value, and entries with the same order value by descending value. Serializable,
+   * since the heap holding the entries is serialized with the aggregate.
+   */
+  private static final class EntryComparator implements Comparator<Entry>, Serializable {
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compare(Entry entry1, Entry entry2) {
+      int comparison = entry1.order.compareTo(entry2.order);
+      return comparison != 0 ? comparison : TopKValues.compare(entry2.value, entry1.value);
+    }
+  }
+}
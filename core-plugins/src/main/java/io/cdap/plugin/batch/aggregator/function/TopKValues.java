@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Helpers for the values kept by {@link TopK} and {@link TopKBy}. Bytes values are kept as {@link ByteArray}, since
+ * byte arrays compare by identity and byte buffers by their remaining content, which changes when they are read.
+ */
+final class TopKValues {
+
+  private TopKValues() {
+  }
+
+  /**
+   * @return the value to keep for the given field value, which is a copy of it for bytes values
+   */
+  static Object wrap(Object value) {
+    if (value instanceof byte[]) {
+      return new ByteArray(((byte[]) value).clone());
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return new ByteArray(bytes);
+    }
+    return value;
+  }
+
+  /**
+   * @return the field value of a kept value, which is a byte array for bytes values
+   */
+  static Object unwrap(Object value) {
+    return value instanceof ByteArray ? ((ByteArray) value).bytes : value;
+  }
+
+  /**
+   * Orders kept values, to break ties in a way that does not depend on how the values were partitioned. Comparable
+   * values are in natural order, and other values, such as records, arrays and maps, are ordered by hash code.
+   */
+  @SuppressWarnings("unchecked")
+  static int compare(Object value1, Object value2) {
+    if (value1 instanceof Comparable && value1.getClass() == value2.getClass()) {
+      return ((Comparable<Object>) value1).compareTo(value2);
+    }
+    return Integer.compare(value1.hashCode(), value2.hashCode());
+  }
+
+  /**
+   * Bytes value that is equal to and ordered like other bytes values with the same content.
+   */
+  private static final class ByteArray implements Comparable<ByteArray>, Serializable {
+    private final byte[] bytes;
+
+    private ByteArray(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ByteArray && Arrays.equals(bytes, ((ByteArray) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public int compareTo(ByteArray other) {
+      int length = Math.min(bytes.length, other.bytes.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Integer.compare(bytes[i] & 0xff, other.bytes[i] & 0xff);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(bytes.length, other.bytes.length);
+    }
+  }
+}
@@ -24,20 +24,13 @@ import javax.annotation.Nullable;
 
 /**
  * Calculates Variance
- * Uses E(x^2) - [E(x)]^2 formula for variance calculation
- * Uses ((n1 * E1) + (n2 * E2)) / (n1 + n2) formula when merging partition
+ * Uses a {@link RunningVariance}, which adds values with Welford's online algorithm and combines partitions with
+ * Chan's parallel algorithm
  */
 public class Variance implements AggregateFunction<Double, Variance> {
-  private static final String AGG_KEY = "variance";
-  private static final String AGG_SQUARE_MEAN_KEY = "squareMean";
-  private static final String AGG_COUNT_KEY = "count";
-  private static final String AGG_MEAN_KEY = "mean";
   private final String fieldName;
   private final Schema outputSchema;
-  private Double variance;
-  private double mean;
-  private double squaredMean;
-  private long count;
+  private RunningVariance stats;
 
   public Variance(String fieldName, Schema fieldSchema) {
     this.fieldName = fieldName;
@@ -48,10 +41,7 @@ public class Variance implements AggregateFunction<Double, Variance> {
 
   @Override
   public void initialize() {
-    this.variance = null;
-    this.mean = 0d;
-    this.squaredMean = 0d;
-    this.count = 0L;
+    this.stats = new RunningVariance();
   }
 
   @Override
@@ -60,68 +50,21 @@ public class Variance implements AggregateFunction<Double, Variance> {
     if (val == null) {
       return;
     }
-
-    Number number = (Number) val;
-    double value = number.doubleValue();
-    double valueSquared = number.doubleValue() * number.doubleValue();
-    count++;
-
-    // Calculate Delta of the value vs the mean and adjust the mean
-    double delta = (value / count) - (mean / count);
-    mean += delta;
-
-    // Calculate delta of the squared value vs the squared mean and adjust the squared mean
-    double deltaSquared = (valueSquared / count) - (squaredMean / count);
-    squaredMean += deltaSquared;
-
-    // For a single record, variance is 0.
-    if (count == 1L) {
-      variance = 0d;
-      return;
-    }
-    variance = squaredMean - (mean * mean);
+    stats.push(((Number) val).doubleValue());
   }
 
   @Override
   public void mergeAggregates(Variance otherAgg) {
-    if (otherAgg.variance == null) {
-      return;
-    }
-    if (variance == null) {
-      variance = otherAgg.variance;
-      count = otherAgg.count;
-      mean = otherAgg.mean;
-      squaredMean = otherAgg.squaredMean;
-      return;
-    }
-
-    // Get values from the aggregator
-    long countLeft = count;
-    long countRight = otherAgg.count;
-    double meanLeft = mean;
-    double meanRight = otherAgg.mean;
-    double squaredMeanLeft = squaredMean;
-    double squaredMeanRight = otherAgg.squaredMean;
-
-    // Calculate new count
-    count = countLeft + countRight;
-
-    // Combine both counts and means
-    // We divide at every step to reduce the possibility of catastrophic cancellation
-    mean = ((meanLeft / count) * countLeft) + ((meanRight / count) * countRight);
-    squaredMean = ((squaredMeanLeft / count) * countLeft) + ((squaredMeanRight / count) * countRight);
-
-    variance = squaredMean - (mean * mean);
+    stats.merge(otherAgg.stats);
   }
 
   @Nullable
   @Override
   public Double getAggregate() {
-    if (variance == null) {
+    if (stats.count() == 0L) {
       return null;
     }
-
-    return variance;
+    return stats.variance();
   }
 
   @Override
@@ -26,6 +26,7 @@ import com.google.gson.JsonSyntaxException;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.plugin.PluginConfig;
@@ -53,6 +54,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -81,6 +83,12 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
   private static final String CONTEXT_NAME = "dont_name_your_context_this";
   private ScriptEngine engine;
   private Invocable invocable;
+  // the script's transform function, in the compiled execution mode
+  private TransformFunction transformFunction;
+  private ScriptContext scriptContext;
+  // reused for every record in the compiled execution mode
+  private StructuredRecordView inputView;
+  private JSEmitter jsEmitter;
   private Schema schema;
   private Schema errSchema;
   private final Config config;
@@ -96,6 +104,9 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     private static final String LOOKUP = "lookup";
     private static final String SCHEMA = "schema";
     private static final String SCRIPT = "script";
+    private static final String EXECUTION_MODE = "executionMode";
+    private static final String JSON_MODE = "json";
+    private static final String COMPILED_MODE = "compiled";
 
     @Description("JavaScript defining how to transform input record into zero or more records. " +
       "The script must implement a function " +
@@ -128,13 +139,39 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     @Nullable
     private final String lookup;
 
+    @Description("How input records are passed to the script. In 'json' mode, every input record is converted to " +
+      "a JSON string that is evaluated by the script engine. In 'compiled' mode, the transform function is bound " +
+      "once, and called with an object that reads the fields of the input record as they are accessed, so that " +
+      "fields that are not changed by the script are never converted. In 'compiled' mode, the script sees the Java " +
+      "values of the record instead of JSON values: arrays and maps are read-only Java lists and maps, longs are " +
+      "Java longs, bytes are byte arrays or buffers, and logical types have their underlying value. The input " +
+      "object is reused for every record. Scripts written for 'json' mode may need changes. Defaults to 'json'.")
+    @Nullable
+    private final String executionMode;
+
     public Config(String script, String schema, LookupConfig lookup) {
+      this(script, schema, lookup, null);
+    }
+
+    public Config(String script, String schema, LookupConfig lookup, @Nullable String executionMode) {
       this.script = script;
       this.schema = schema;
       this.lookup = GSON.toJson(lookup);
+      this.executionMode = executionMode;
+    }
+
+    private boolean isCompiledMode() {
+      return COMPILED_MODE.equalsIgnoreCase(executionMode);
     }
   }
 
+  /**
+   * The transform function of the script, as it is called in the compiled execution mode.
+   */
+  public interface TransformFunction {
+    void transform(Object input, Object emitter, Object context);
+  }
+
   // for unit tests, otherwise config is injected by plugin framework.
   public JavaScriptTransform(Config config) {
     this.config = config;
@@ -200,6 +237,21 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
 
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
+    if (transformFunction != null) {
+      if (inputView == null) {
+        inputView = new StructuredRecordView(input);
+        jsEmitter = new JSEmitter(emitter, schema == null ? input.getSchema() : schema);
+      } else {
+        inputView.reset(input);
+        jsEmitter.reset(emitter, schema == null ? input.getSchema() : schema);
+      }
+      try {
+        transformFunction.transform(inputView, jsEmitter, scriptContext);
+      } catch (Exception e) {
+        throw new IllegalArgumentException("Could not transform input: " + e.getMessage(), e);
+      }
+      return;
+    }
     try {
       engine.eval(String.format("var %s = %s;", VARIABLE_NAME, StructuredRecordStringConverter.toJsonString(input)));
       Emitter<Map> jsEmitter = new JSEmitter(emitter, schema == null ? input.getSchema() : schema);
@@ -215,14 +267,19 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
    */
   public final class JSEmitter implements Emitter<Map> {
 
-    private final Emitter<StructuredRecord> emitter;
-    private final Schema schema;
+    private Emitter<StructuredRecord> emitter;
+    private Schema schema;
 
     public JSEmitter(Emitter<StructuredRecord> emitter, Schema schema) {
       this.emitter = emitter;
       this.schema = schema;
     }
 
+    private void reset(Emitter<StructuredRecord> emitter, Schema schema) {
+      this.emitter = emitter;
+      this.schema = schema;
+    }
+
     @Override
     public void emit(Map value) {
       emitter.emit(decodeRecord(value, schema));
@@ -301,6 +358,9 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
   }
 
   private StructuredRecord decodeRecord(Map nativeObject, Schema schema) {
+    if (nativeObject instanceof StructuredRecordView) {
+      return decodeView((StructuredRecordView) nativeObject, schema);
+    }
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
     for (Schema.Field field : schema.getFields()) {
       String fieldName = field.getName();
@@ -310,7 +370,37 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     return builder.build();
   }
 
+  /**
+   * Decodes a record that was passed to the script in the compiled execution mode. Only the fields set by the
+   * script are decoded. If the output schema is the schema of the input record, the other fields are copied as they
+   * are, and the input record itself is returned if no field was set.
+   */
+  private StructuredRecord decodeView(StructuredRecordView view, Schema schema) {
+    StructuredRecord record = view.getRecord();
+    Map<String, Object> updates = view.getUpdates();
+    boolean sameSchema = record.getSchema() == schema || record.getSchema().equals(schema);
+    if (sameSchema && updates.isEmpty()) {
+      return record;
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : schema.getFields()) {
+      String fieldName = field.getName();
+      if (updates.containsKey(fieldName)) {
+        builder.set(fieldName, decode(updates.get(fieldName), field.getSchema()));
+      } else if (sameSchema) {
+        builder.set(fieldName, record.get(fieldName));
+      } else {
+        builder.set(fieldName, decode(view.get(fieldName), field.getSchema()));
+      }
+    }
+    return builder.build();
+  }
+
   private List jsObject2List(Object object) {
+    if (object instanceof List) {
+      // lists of records passed to the script in the compiled execution mode
+      return (List) object;
+    }
     if (somValuesMethod != null) {
       // using Nashorn (Java 8+) -- convert ScriptObjectMirror to List
       try {
@@ -336,6 +426,12 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
       case FLOAT:
         return ((Number) object).floatValue();
       case BYTES:
+        if (object instanceof byte[]) {
+          return object;
+        }
+        if (object instanceof ByteBuffer) {
+          return Bytes.toBytes((ByteBuffer) object);
+        }
         List byteArr = jsObject2List(object);
         byte[] output = new byte[byteArr.size()];
         for (int i = 0; i < output.length; i++) {
@@ -406,7 +502,21 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
     }
 
     Arguments arguments = context == null ? null : context.getArguments();
-    engine.put(CONTEXT_NAME, new ScriptContext(LOG, metrics, context, lookupConfig, js, arguments));
+    scriptContext = new ScriptContext(LOG, metrics, context, lookupConfig, js, arguments);
+    engine.put(CONTEXT_NAME, scriptContext);
+
+    if (config.executionMode != null && !config.isCompiledMode()
+      && !Config.JSON_MODE.equalsIgnoreCase(config.executionMode)) {
+      collector.addFailure(String.format("Invalid execution mode '%s'.", config.executionMode),
+                           String.format("Execution mode must be '%s' or '%s'.", Config.JSON_MODE,
+                                         Config.COMPILED_MODE))
+        .withConfigProperty(Config.EXECUTION_MODE);
+      throw collector.getOrThrowException();
+    }
+    if (config.isCompiledMode()) {
+      initCompiled(collector);
+      return;
+    }
 
     try {
       // this is pretty ugly, but doing this so that we can pass the 'input' json into the transform function.
@@ -422,6 +532,30 @@ public class JavaScriptTransform extends Transform<StructuredRecord, StructuredR
         .withConfigProperty(Config.SCRIPT);
     }
     invocable = (Invocable) engine;
+    parseSchema(collector);
+  }
+
+  /**
+   * Evaluates the script once and binds its transform function, which is then called directly for every record.
+   */
+  private void initCompiled(FailureCollector collector) {
+    try {
+      engine.eval(config.script);
+      invocable = (Invocable) engine;
+      transformFunction = invocable.getInterface(TransformFunction.class);
+      if (transformFunction == null) {
+        collector.addFailure("Script does not define a 'transform' function.",
+                             "Define a function 'transform(input, emitter, context)'.")
+          .withConfigProperty(Config.SCRIPT);
+      }
+    } catch (ScriptException e) {
+      collector.addFailure(String.format("Invalid script: %s.", e.getMessage()), null)
+        .withConfigProperty(Config.SCRIPT);
+    }
+    parseSchema(collector);
+  }
+
+  private void parseSchema(FailureCollector collector) {
     if (config.schema != null) {
       try {
         schema = Schema.parseJson(config.schema);
@@ -122,6 +122,10 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
   private Map<String, Schema.Type> fieldsToConvert = Maps.newHashMap();
   // cache input schema hash to output schema so we don't have to build it each time
   private Map<Schema, Schema> schemaCache = Maps.newHashMap();
+  // cache input schema to the plan to project its records, and the plan of the previous record's schema
+  private Map<Schema, ProjectionPlan> planCache = Maps.newHashMap();
+  private Schema lastInputSchema;
+  private ProjectionPlan lastPlan;
 
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) throws IllegalArgumentException {
@@ -172,9 +176,68 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
 
   @Override
   public void transform(StructuredRecord valueIn, Emitter<StructuredRecord> emitter) {
-    Schema inputSchema = valueIn.getSchema();
+    ProjectionPlan plan = getPlan(valueIn.getSchema());
+    StructuredRecord.Builder builder = StructuredRecord.builder(plan.outputSchema);
+    for (int i = 0; i < plan.inputFields.length; i++) {
+      Object inputVal = valueIn.get(plan.inputFields[i]);
+      FieldConverter converter = plan.converters[i];
+      // if we need to convert the value, convert it. otherwise just pass the value through
+      if (converter == null) {
+        builder.set(plan.outputFields[i], inputVal);
+      } else {
+        converter.convertAndSet(builder, inputVal);
+      }
+    }
+    emitter.emit(builder.build());
+  }
+
+  /**
+   * Plan to project the records of an input schema, so that the fields to keep, drop, rename and convert are only
+   * looked up once per input schema instead of for every record.
+   */
+  private static final class ProjectionPlan {
+    private final Schema outputSchema;
+    // the input fields that are kept, and their output field names
+    private final String[] inputFields;
+    private final String[] outputFields;
+    // the converters of the fields to convert, null for the fields that are passed through
+    private final FieldConverter[] converters;
+
+    private ProjectionPlan(Schema outputSchema, List<String> inputFields, List<String> outputFields,
+                           List<FieldConverter> converters) {
+      this.outputSchema = outputSchema;
+      this.inputFields = inputFields.toArray(new String[0]);
+      this.outputFields = outputFields.toArray(new String[0]);
+      this.converters = converters.toArray(new FieldConverter[0]);
+    }
+  }
+
+  /**
+   * Converts the value of an input field, and sets it on the output field it was bound to.
+   */
+  private interface FieldConverter {
+    void convertAndSet(StructuredRecord.Builder builder, Object val);
+  }
+
+  private ProjectionPlan getPlan(Schema inputSchema) {
+    if (inputSchema == lastInputSchema) {
+      return lastPlan;
+    }
+    ProjectionPlan plan = planCache.get(inputSchema);
+    if (plan == null) {
+      plan = createPlan(inputSchema);
+      planCache.put(inputSchema, plan);
+    }
+    lastInputSchema = inputSchema;
+    lastPlan = plan;
+    return plan;
+  }
+
+  private ProjectionPlan createPlan(Schema inputSchema) {
     Schema outputSchema = getOutputSchema(inputSchema, getContext().getFailureCollector());
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
+    List<String> inputFields = new ArrayList<>();
+    List<String> outputFields = new ArrayList<>();
+    List<FieldConverter> converters = new ArrayList<>();
     for (Schema.Field inputField : inputSchema.getFields()) {
       String inputFieldName = inputField.getName();
       if (!fieldsToKeep.isEmpty() && !fieldsToKeep.contains(inputFieldName)) {
@@ -188,17 +251,16 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
         outputFieldName = inputFieldName;
       }
 
-      Schema.Field outputField = outputSchema.getField(outputFieldName);
-      Object inputVal = valueIn.get(inputFieldName);
-
-      // if we need to convert the value, convert it. otherwise just pass the value through
+      inputFields.add(inputFieldName);
+      outputFields.add(outputFieldName);
       if (fieldsToConvert.containsKey(inputFieldName)) {
-        convertAndSet(builder, outputFieldName, inputVal, inputField.getSchema(), outputField.getSchema());
+        Schema.Field outputField = outputSchema.getField(outputFieldName);
+        converters.add(createConverter(outputFieldName, inputField.getSchema(), outputField.getSchema()));
       } else {
-        builder.set(outputFieldName, inputVal);
+        converters.add(null);
       }
     }
-    emitter.emit(builder.build());
+    return new ProjectionPlan(outputSchema, inputFields, outputFields, converters);
   }
 
   private void init(Schema inputSchema, FailureCollector collector) {
@@ -293,28 +355,31 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
     }
   }
 
-  private void convertAndSet(StructuredRecord.Builder builder, String fieldName, Object val,
-                             Schema inputSchema, Schema outputSchema) {
+  private FieldConverter createConverter(String fieldName, Schema inputSchema, Schema outputSchema) {
     // guaranteed that if the input type is nullable, the output type is also nullable.
-    Schema.Type inputType = inputSchema.getType();
-    Schema.Type outputType = outputSchema.getType();
-    if (inputSchema.isNullable()) {
-      if (val == null) {
-        builder.set(fieldName, null);
-        return;
-      }
-      inputType = inputSchema.getNonNullable().getType();
-      outputType = outputSchema.getNonNullable().getType();
-    }
+    boolean nullable = inputSchema.isNullable();
+    Schema.Type inputType = nullable ? inputSchema.getNonNullable().getType() : inputSchema.getType();
+    Schema.Type outputType = nullable ? outputSchema.getNonNullable().getType() : outputSchema.getType();
 
     // if the input is a string, try and do some sensible conversion
     if (inputType == Schema.Type.STRING) {
-      builder.convertAndSet(fieldName, (String) val);
-    } else {
-      // otherwise, just try to cast it.
-      builder.set(fieldName, convertPrimitive(fieldName, val, inputType, outputType,
-                                              getContext().getFailureCollector()));
+      return (builder, val) -> {
+        if (nullable && val == null) {
+          builder.set(fieldName, null);
+        } else {
+          builder.convertAndSet(fieldName, (String) val);
+        }
+      };
     }
+    // otherwise, just try to cast it.
+    return (builder, val) -> {
+      if (nullable && val == null) {
+        builder.set(fieldName, null);
+      } else {
+        builder.set(fieldName, convertPrimitive(fieldName, val, inputType, outputType,
+                                                getContext().getFailureCollector()));
+      }
+    };
   }
 
   private Object convertPrimitive(String fieldName, Object val, Schema.Type inputType,
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.transform;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Live {@link Map} view of a {@link StructuredRecord}, passed to scripts instead of a converted copy of the record.
+ * Field values are read from the record when the script accesses them, and values set by the script are kept on
+ * top of the record, so fields that the script does not change are never copied or converted.
+ *
+ * Nested records are returned as views as well, and changes made to them are kept. Arrays and maps are returned as
+ * read-only views whose nested records are views too, but changes to those nested records are not kept: the field
+ * holding the array or map must be set to a new value instead.
+ */
+public final class StructuredRecordView extends AbstractMap<String, Object> {
+  private StructuredRecord record;
+  // values set by the script, and nested record views that were read, since the script may have changed those
+  private final Map<String, Object> updates = new LinkedHashMap<>();
+
+  StructuredRecordView(StructuredRecord record) {
+    this.record = record;
+  }
+
+  /**
+   * Makes this a view of the given record, dropping the values set on the previous record. Lets the transform use
+   * a single view for all its input records.
+   */
+  void reset(StructuredRecord record) {
+    this.record = record;
+    updates.clear();
+  }
+
+  /**
+   * @return the record this is a view of
+   */
+  StructuredRecord getRecord() {
+    return record;
+  }
+
+  /**
+   * @return the values set by the script and the nested record views, by field name
+   */
+  Map<String, Object> getUpdates() {
+    return updates;
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (updates.containsKey(key)) {
+      return updates.get(key);
+    }
+    if (!(key instanceof String) || record.getSchema().getField((String) key) == null) {
+      return null;
+    }
+    Object value = wrap(record.get((String) key));
+    if (value instanceof StructuredRecordView) {
+      updates.put((String) key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return updates.containsKey(key) || (key instanceof String && record.getSchema().getField((String) key) != null);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Object previous = get(key);
+    updates.put(key, value);
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    return put((String) key, null);
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (Schema.Field field : record.getSchema().getFields()) {
+      values.put(field.getName(), get(field.getName()));
+    }
+    values.putAll(updates);
+    return Collections.unmodifiableMap(values).entrySet();
+  }
+
+  /**
+   * @return the value to pass to the script for the given record value
+   */
+  static Object wrap(Object value) {
+    if (value instanceof StructuredRecord) {
+      return new StructuredRecordView((StructuredRecord) value);
+    }
+    if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      return new AbstractList<Object>() {
+        @Override
+        public Object get(int index) {
+          return wrap(list.get(index));
+        }
+
+        @Override
+        public int size() {
+          return list.size();
+        }
+      };
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      return new AbstractMap<Object, Object>() {
+        @Override
+        public Object get(Object key) {
+          return wrap(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+          return map.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+          Map<Object, Object> values = new LinkedHashMap<>();
+          for (Entry<?, ?> entry : map.entrySet()) {
+            values.put(entry.getKey(), wrap(entry.getValue()));
+          }
+          return Collections.unmodifiableMap(values).entrySet();
+        }
+      };
+    }
+    return value;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link AggregationPlan}.
+ */
+public class AggregationPlanTest {
+  private static final Schema INPUT_SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("item", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)));
+
+  @Test
+  public void testSchemas() {
+    GroupByConfig config = new GroupByConfig("user", "total:sum(price),purchases:count(*)");
+    AggregationPlan plan = AggregationPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+
+    Assert.assertEquals(Schema.recordOf("group.key.schema", Schema.Field.of("user", Schema.of(Schema.Type.STRING))),
+                        plan.getGroupKeySchema());
+    Assert.assertEquals(Schema.recordOf("purchase.agg",
+                                        Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+                                        Schema.Field.of("total", Schema.of(Schema.Type.DOUBLE)),
+                                        Schema.Field.of("purchases", Schema.of(Schema.Type.LONG))),
+                        plan.getOutputSchema());
+  }
+
+  @Test
+  public void testAggregate() {
+    GroupByConfig config = new GroupByConfig("user", "total:sum(price),purchases:count(*),items:collectList(item)");
+    AggregationPlan plan = AggregationPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+
+    StructuredRecord first = StructuredRecord.builder(INPUT_SCHEMA)
+      .set("user", "samuel").set("item", "island").set("price", 10d).build();
+    StructuredRecord second = StructuredRecord.builder(INPUT_SCHEMA)
+      .set("user", "samuel").set("item", "shirt").set("price", 5d).build();
+
+    StructuredRecord groupKey = plan.getGroupKey(first);
+    Assert.assertEquals("samuel", groupKey.get("user"));
+    Assert.assertNull(groupKey.getSchema().getField("item"));
+
+    AggregateResult aggregate = plan.createAggregate(INPUT_SCHEMA);
+    plan.mergeValue(aggregate, first);
+    AggregateResult other = plan.createAggregate(INPUT_SCHEMA);
+    plan.mergeValue(other, second);
+    plan.merge(aggregate, other);
+    StructuredRecord output = plan.getOutput(groupKey, aggregate);
+    Assert.assertEquals("samuel", output.get("user"));
+    Assert.assertEquals(15d, output.<Double>get("total"), 0.000001d);
+    Assert.assertEquals(2L, (long) output.<Long>get("purchases"));
+    Assert.assertEquals(Arrays.asList("island", "shirt"), output.get("items"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingGroupByField() {
+    GroupByConfig config = new GroupByConfig("email", "total:sum(price)");
+    AggregationPlan.compile(INPUT_SCHEMA, config.getGroupByFields(), config.getAggregates());
+  }
+}
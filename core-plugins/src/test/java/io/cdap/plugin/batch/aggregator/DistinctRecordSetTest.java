@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link DistinctRecordSet}.
+ */
+public class DistinctRecordSetTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("item", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)));
+  private static final List<String> FIELDS = Arrays.asList("user", "item");
+  private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+  @Test
+  public void testAdd() {
+    DistinctRecordSet set = new DistinctRecordSet(FIELDS, MAX_BYTES);
+    Assert.assertFalse(set.add(record("samuel", "island", 10d)));
+    Assert.assertTrue(set.add(record("samuel", "island", 5d)));
+    Assert.assertFalse(set.add(record("samuel", "shirt", 5d)));
+    Assert.assertFalse(set.add(record(null, "island", 5d)));
+    Assert.assertTrue(set.add(record(null, "island", 5d)));
+    Assert.assertEquals(3, set.size());
+  }
+
+  @Test
+  public void testDistinctValues() {
+    DistinctRecordSet set = new DistinctRecordSet(FIELDS, MAX_BYTES);
+    // values that would be equal if they were concatenated, or if null was treated like an empty string
+    List<StructuredRecord> records = Arrays.asList(record("ab", "c", 0d), record("a", "bc", 0d),
+                                                   record("", "abc", 0d), record(null, "abc", 0d),
+                                                   record("abc", null, 0d), record(null, null, 0d));
+    for (StructuredRecord record : records) {
+      Assert.assertFalse(set.add(record));
+    }
+
+    // enough values to resize the set a few times
+    for (int i = 0; i < 10000; i++) {
+      Assert.assertFalse(set.add(record("user" + i, "item" + (i % 7), 0d)));
+    }
+    for (int i = 0; i < 10000; i++) {
+      Assert.assertTrue(set.add(record("user" + i, "item" + (i % 7), 1d)));
+    }
+    Assert.assertEquals(10006, set.size());
+  }
+
+  @Test
+  public void testFlush() {
+    DistinctRecordSet set = new DistinctRecordSet(FIELDS, 4096);
+    Assert.assertFalse(set.add(record("samuel", "island", 10d)));
+    Assert.assertTrue(set.add(record("samuel", "island", 10d)));
+
+    // once the set is flushed, a record is no longer found, but a new record never is
+    for (int i = 0; i < 10000; i++) {
+      Assert.assertFalse(set.add(record("user" + i, "item", 0d)));
+      Assert.assertTrue(set.size() <= 4096 / 64);
+    }
+    Assert.assertTrue(set.getFlushes() > 0);
+    Assert.assertFalse(set.add(record("samuel", "island", 10d)));
+  }
+
+  @Test
+  public void testDisabled() {
+    DistinctRecordSet set = new DistinctRecordSet(FIELDS, 0);
+    Assert.assertFalse(set.add(record("samuel", "island", 10d)));
+    Assert.assertFalse(set.add(record("samuel", "island", 10d)));
+    Assert.assertEquals(0, set.size());
+  }
+
+  @Test
+  public void testUnsupportedValues() {
+    Schema schema = Schema.recordOf("x", Schema.Field.of("x", Schema.arrayOf(Schema.of(Schema.Type.INT))));
+    DistinctRecordSet set = new DistinctRecordSet(Arrays.asList("x"), MAX_BYTES);
+    StructuredRecord record = StructuredRecord.builder(schema).set("x", Arrays.asList(1, 2)).build();
+    Assert.assertFalse(set.add(record));
+    Assert.assertFalse(set.add(record));
+    Assert.assertEquals(0, set.size());
+  }
+
+  private static StructuredRecord record(String user, String item, double price) {
+    return StructuredRecord.builder(SCHEMA).set("user", user).set("item", item).set("price", price).build();
+  }
+}
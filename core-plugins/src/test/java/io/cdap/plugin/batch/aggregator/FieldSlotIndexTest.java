@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for {@link FieldSlotIndex}.
+ */
+public class FieldSlotIndexTest {
+
+  @Test
+  public void testLookup() {
+    Map<String, Integer> slotsByName = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      slotsByName.put("field" + i, i);
+    }
+    // different strings with the same hash code
+    slotsByName.put("Aa", 1000);
+    slotsByName.put("BB", 1001);
+    FieldSlotIndex index = new FieldSlotIndex(slotsByName);
+    for (Map.Entry<String, Integer> entry : slotsByName.entrySet()) {
+      Assert.assertEquals((int) entry.getValue(), index.getSlot(entry.getKey()));
+    }
+    Assert.assertEquals(-1, index.getSlot("field1000"));
+    Assert.assertEquals(-1, index.getSlot(""));
+    Assert.assertEquals(-1, index.getSlot(null));
+  }
+
+  @Test
+  public void testEmpty() {
+    FieldSlotIndex index = new FieldSlotIndex(Collections.emptyMap());
+    Assert.assertEquals(-1, index.getSlot("field"));
+  }
+
+  @Test
+  public void testAliases() {
+    // like the config, the output fields hold the aliases instead of the aliased names
+    String[] outputFields = {"Firstname", "lname", "addr"};
+    FieldSlotIndex index = RowDenormalizerAggregator.createSlotIndex(
+      ImmutableMap.of("Lastname", "lname", "Address", "addr", "addr", "other"), outputFields);
+    Assert.assertEquals(0, index.getSlot("Firstname"));
+    Assert.assertEquals(1, index.getSlot("Lastname"));
+    Assert.assertEquals(1, index.getSlot("lname"));
+    Assert.assertEquals(2, index.getSlot("Address"));
+    // a name with an alias that is not an output field is dropped, even if the name itself is an output field
+    Assert.assertEquals(-1, index.getSlot("addr"));
+    Assert.assertEquals(-1, index.getSlot("Phone"));
+  }
+}
@@ -17,6 +17,7 @@
 package io.cdap.plugin.batch.aggregator;
 
 import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.data.schema.Schema;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -55,4 +56,49 @@ public class GroupByAggregatorConfigTest {
     );
     Assert.assertEquals(expected, config.getAggregates());
   }
+
+  @Test
+  public void testParsingArguments() {
+    GroupByConfig config = new GroupByConfig("user",
+                                             "visitors:approxCountDistinct(visitor, 12)," +
+                                               "allVisitors:approxCountDistinct(visitor)," +
+                                               "cheap:countIf(item):condition(item.equals('a, b'))");
+    List<GroupByConfig.FunctionInfo> expected = ImmutableList.of(
+      new GroupByConfig.FunctionInfo("visitors", "visitor", GroupByConfig.Function.APPROXCOUNTDISTINCT, null,
+                                     ImmutableList.of("12")),
+      new GroupByConfig.FunctionInfo("allVisitors", "visitor", GroupByConfig.Function.APPROXCOUNTDISTINCT),
+      new GroupByConfig.FunctionInfo("cheap", "item", GroupByConfig.Function.COUNTIF, "item.equals('a, b')")
+    );
+    Assert.assertEquals(expected, config.getAggregates());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnexpectedArguments() {
+    new GroupByConfig("user", "total:sum(price, 2)").getAggregates();
+  }
+
+  @Test
+  public void testPercentileArguments() {
+    GroupByConfig config = new GroupByConfig("user", "p90:percentile(price, 0.9),spread:approxQuantiles(price, 10)");
+    List<GroupByConfig.FunctionInfo> aggregates = config.getAggregates();
+    Assert.assertEquals(ImmutableList.of("0.9"), aggregates.get(0).getArguments());
+    Assert.assertEquals(ImmutableList.of("10"), aggregates.get(1).getArguments());
+    aggregates.forEach(aggregate -> aggregate.getAggregateFunction(Schema.of(Schema.Type.DOUBLE)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingPercentile() {
+    new GroupByConfig("user", "p90:percentile(price)").getAggregates().get(0)
+      .getAggregateFunction(Schema.of(Schema.Type.DOUBLE));
+  }
+
+  @Test
+  public void testTopKArguments() {
+    GroupByConfig config = new GroupByConfig("region", "top:topK(product, 5),priciest:topKBy(product, price, 3)");
+    List<GroupByConfig.FunctionInfo> aggregates = config.getAggregates();
+    Assert.assertEquals(ImmutableList.of("5"), aggregates.get(0).getArguments());
+    Assert.assertEquals("price", aggregates.get(1).getOrderFieldArgument());
+    Assert.assertEquals(Schema.arrayOf(Schema.of(Schema.Type.STRING)),
+                        aggregates.get(1).getAggregateFunction(Schema.of(Schema.Type.STRING)).getOutputSchema());
+  }
 }
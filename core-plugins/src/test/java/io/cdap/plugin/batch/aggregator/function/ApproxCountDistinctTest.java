@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Tests for {@link ApproxCountDistinct}, including its accuracy and memory use compared to {@link CountDistinct}.
+ */
+public class ApproxCountDistinctTest extends AggregateFunctionTest {
+
+  @Test
+  public void testSmallCardinality() {
+    Schema schema = Schema.recordOf("cities",
+                                    Schema.Field.of("city", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    test(new ApproxCountDistinct("city", 14), schema, "city", 4L,
+         Arrays.asList("Mountain View", "Sunnyvale", "Sunnyvale", null, "RedwoodCity", "RedwoodCity", null),
+         new ApproxCountDistinct("city", 14));
+  }
+
+  @Test
+  public void testTypes() {
+    Schema intSchema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    test(new ApproxCountDistinct("x", 10), intSchema, "x", 3L, Arrays.asList(1, 2, 3, 3, 2, 1),
+         new ApproxCountDistinct("x", 10));
+    Schema longSchema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.LONG)));
+    test(new ApproxCountDistinct("x", 10), longSchema, "x", 2L, Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE),
+         new ApproxCountDistinct("x", 10));
+    Schema boolSchema = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.BOOLEAN)));
+    test(new ApproxCountDistinct("x", 10), boolSchema, "x", 2L, Arrays.asList(true, false, true, true),
+         new ApproxCountDistinct("x", 10));
+  }
+
+  @Test
+  public void testAccuracyAndMemoryAgainstExact() throws Exception {
+    Schema schema = Schema.recordOf("users", Schema.Field.of("user", Schema.of(Schema.Type.STRING)));
+    for (int cardinality : new int[] {100, 10000, 200000}) {
+      ApproxCountDistinct approx = new ApproxCountDistinct("user", ApproxCountDistinct.DEFAULT_PRECISION);
+      CountDistinct<String> exact = new CountDistinct<>("user");
+      long approxCount = (long) getAggregateMultiplePartitions(
+        () -> new ApproxCountDistinct("user", ApproxCountDistinct.DEFAULT_PRECISION), schema, "user",
+        IntStream.range(0, cardinality * 2).mapToObj(i -> "user-" + (i % cardinality)).iterator());
+      int exactCount = (int) getAggregateSinglePartition(
+        () -> new CountDistinct<String>("user"), schema, "user",
+        IntStream.range(0, cardinality).mapToObj(i -> "user-" + i).iterator());
+      Assert.assertEquals(cardinality, exactCount);
+      // relative standard error at precision 14 is 0.8%, allow for 4 standard errors
+      Assert.assertEquals(exactCount, approxCount, exactCount * 0.032d);
+
+      // compare the shuffled size of both functions
+      approx.initialize();
+      exact.initialize();
+      for (int i = 0; i < cardinality; i++) {
+        StructuredRecord record = StructuredRecord.builder(schema).set("user", "user-" + i).build();
+        approx.mergeValue(record);
+        exact.mergeValue(record);
+      }
+      Assert.assertTrue(serializedSize(approx) <= (1 << ApproxCountDistinct.DEFAULT_PRECISION) + 1024);
+      if (cardinality >= 200000) {
+        Assert.assertTrue(serializedSize(approx) * 100 < serializedSize(exact));
+      }
+    }
+  }
+
+  @Test
+  public void testSparseToDense() {
+    HyperLogLogPlusPlus sparse = new HyperLogLogPlusPlus(12);
+    HyperLogLogPlusPlus dense = new HyperLogLogPlusPlus(12);
+    LongStream.range(0, 100).forEach(i -> sparse.addHash(mix(i)));
+    LongStream.range(100, 50000).forEach(i -> dense.addHash(mix(i)));
+    Assert.assertEquals(100L, sparse.cardinality(), 2d);
+
+    // merging sparse into dense and dense into sparse must give the same registers
+    HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(12);
+    merged.merge(sparse);
+    merged.merge(dense);
+    sparse.merge(dense);
+    Assert.assertEquals(merged.cardinality(), sparse.cardinality());
+    // relative standard error at precision 12 is 1.6%
+    Assert.assertEquals(50000L, merged.cardinality(), 50000 * 0.064d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPrecision() {
+    new ApproxCountDistinct("x", 30);
+  }
+
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    return value ^ (value >>> 33);
+  }
+
+  private static int serializedSize(Serializable object) throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(object);
+    }
+    return bos.size();
+  }
+}
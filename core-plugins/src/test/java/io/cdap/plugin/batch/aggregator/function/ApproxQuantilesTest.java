@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for {@link ApproxQuantiles}.
+ */
+public class ApproxQuantilesTest extends AggregateFunctionTest {
+  private static final Schema SCHEMA = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.LONG)));
+
+  @Test
+  public void testQuartiles() {
+    test(new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 4), SCHEMA, "x",
+         Arrays.asList(1d, 2d, 3d, 4d, 5d), Arrays.asList(5L, 2L, 1L, 4L, 3L),
+         new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 4));
+    test(new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 1), SCHEMA, "x",
+         Arrays.asList(-7d, 12d), Arrays.asList(5L, 12L, -7L, 4L, 3L),
+         new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 1));
+  }
+
+  @Test
+  public void testEmpty() {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.LONG));
+    Schema schema = Schema.recordOf("x", Schema.Field.of("x", fieldSchema));
+    test(new ApproxQuantiles("x", fieldSchema, 4), schema, "x", Collections.emptyList(), Arrays.asList(null, null),
+         new ApproxQuantiles("x", fieldSchema, 4));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLargeGroup() {
+    List<Object> values = IntStream.range(0, 100001).mapToObj(i -> (long) ((i * 7919L) % 100001))
+      .collect(Collectors.toList());
+    List<Double> quantiles = (List<Double>) getAggregateMultiplePartitions(
+      () -> new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 10), SCHEMA, "x", values.iterator());
+
+    Assert.assertEquals(11, quantiles.size());
+    Assert.assertEquals(0d, quantiles.get(0), 0d);
+    Assert.assertEquals(100000d, quantiles.get(10), 0d);
+    for (int i = 1; i < 10; i++) {
+      Assert.assertEquals(i * 10000d, quantiles.get(i), 100d);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidQuantiles() {
+    new ApproxQuantiles("x", Schema.of(Schema.Type.LONG), 0);
+  }
+}
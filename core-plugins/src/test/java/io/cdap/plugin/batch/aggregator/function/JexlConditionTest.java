@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for {@link JexlCondition}.
+ */
+public class JexlConditionTest {
+  private static final Schema ADDRESS_SCHEMA = Schema.recordOf(
+    "address", Schema.Field.of("zip", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+  private static final Schema SCHEMA = Schema.recordOf(
+    "purchase",
+    Schema.Field.of("price", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("address", Schema.nullableOf(ADDRESS_SCHEMA)));
+
+  @Test
+  public void testTopLevelField() {
+    JexlCondition condition = JexlCondition.of("price > 5");
+    Assert.assertTrue(condition.apply(record(10d, 94000)));
+    Assert.assertFalse(condition.apply(record(1d, 94000)));
+    Assert.assertFalse(condition.apply(record(null, 94000)));
+    Assert.assertTrue(condition.apply(record(5.5d, null)));
+  }
+
+  @Test
+  public void testNestedField() {
+    JexlCondition condition = JexlCondition.of("address.zip > 90000");
+    Assert.assertTrue(condition.apply(record(1d, 94000)));
+    Assert.assertFalse(condition.apply(record(1d, 10001)));
+    Assert.assertFalse(condition.apply(StructuredRecord.builder(SCHEMA).set("price", 1d).build()));
+    Assert.assertEquals(Collections.singleton(Arrays.asList("address", "zip")),
+                        JexlCondition.getVariables("address.zip > 90000"));
+  }
+
+  @Test
+  public void testSchemaChange() {
+    JexlCondition condition = JexlCondition.of("price > 5");
+    Assert.assertTrue(condition.apply(record(10d, 94000)));
+    Schema otherSchema = Schema.recordOf("other", Schema.Field.of("price", Schema.of(Schema.Type.LONG)));
+    Assert.assertFalse(condition.apply(StructuredRecord.builder(otherSchema).set("price", 3L).build()));
+    Assert.assertTrue(condition.apply(StructuredRecord.builder(otherSchema).set("price", 30L).build()));
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    JexlCondition condition = JexlCondition.of("price > 5");
+    Assert.assertTrue(condition.apply(record(10d, 94000)));
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(condition);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      JexlCondition copy = (JexlCondition) ois.readObject();
+      Assert.assertTrue(copy.apply(record(10d, 94000)));
+      Assert.assertFalse(copy.apply(record(1d, 94000)));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingField() {
+    JexlCondition.of("cost > 5").apply(record(10d, 94000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingNestedField() {
+    JexlCondition.of("price.zip > 5").apply(record(10d, 94000));
+  }
+
+  private static StructuredRecord record(Double price, Integer zip) {
+    return StructuredRecord.builder(SCHEMA)
+      .set("price", price)
+      .set("address", StructuredRecord.builder(ADDRESS_SCHEMA).set("zip", zip).build())
+      .build();
+  }
+}
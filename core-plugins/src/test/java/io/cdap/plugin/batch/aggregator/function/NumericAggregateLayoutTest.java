@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link NumericAggregateLayout}, checking that every slot computes the same result as the
+ * corresponding {@link AggregateFunction}.
+ */
+public class NumericAggregateLayoutTest {
+
+  @Test
+  public void testInt() throws Exception {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.INT));
+    testSlots(fieldSchema, Arrays.asList(1, null, -10, 3, Integer.MAX_VALUE, 100, 7));
+  }
+
+  @Test
+  public void testLong() throws Exception {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.LONG));
+    testSlots(fieldSchema, Arrays.asList(1L, -10L, null, 3L, 100L, Long.MIN_VALUE, 8L));
+  }
+
+  @Test
+  public void testFloat() throws Exception {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.FLOAT));
+    testSlots(fieldSchema, Arrays.asList(0.1f, null, 0.01f, 0.001f, -3.3f, 100f, 1e10f));
+  }
+
+  @Test
+  public void testDouble() throws Exception {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.DOUBLE));
+    testSlots(fieldSchema, Arrays.asList(0.1d, 0.01d, null, 0.001d, -3.3d, 100d, 1e100d));
+  }
+
+  @Test
+  public void testAllNull() throws Exception {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.DOUBLE));
+    testSlots(fieldSchema, Arrays.asList(null, null, null));
+  }
+
+  private void testSlots(Schema fieldSchema, List<Object> values) throws Exception {
+    Schema schema = Schema.recordOf("test", Schema.Field.of("x", fieldSchema));
+    NumericAggregateLayout layout = new NumericAggregateLayout(Arrays.asList(
+      NumericSlot.count("x"), NumericSlot.countAll(), NumericSlot.sum("x", fieldSchema),
+      NumericSlot.min("x", fieldSchema), NumericSlot.max("x", fieldSchema), NumericSlot.avg("x"),
+      NumericSlot.variance("x"), NumericSlot.stddev("x")));
+    List<AggregateFunction> functions = Arrays.asList(
+      new Count("x"), new CountAll(), new Sum("x", fieldSchema), new Min("x", fieldSchema),
+      new Max("x", fieldSchema), new Avg("x", fieldSchema), new Variance("x", fieldSchema),
+      new Stddev("x", fieldSchema));
+    List<AggregateFunction> otherFunctions = Arrays.asList(
+      new Count("x"), new CountAll(), new Sum("x", fieldSchema), new Min("x", fieldSchema),
+      new Max("x", fieldSchema), new Avg("x", fieldSchema), new Variance("x", fieldSchema),
+      new Stddev("x", fieldSchema));
+
+    // aggregate half of the values in each state, and merge the second state after a serialization round trip
+    NumericAggregateState state = layout.newState();
+    NumericAggregateState otherState = layout.newState();
+    functions.forEach(AggregateFunction::initialize);
+    otherFunctions.forEach(AggregateFunction::initialize);
+    for (int i = 0; i < values.size(); i++) {
+      StructuredRecord record = StructuredRecord.builder(schema).set("x", values.get(i)).build();
+      boolean first = i < values.size() / 2;
+      layout.mergeValue(first ? state : otherState, record);
+      for (AggregateFunction function : first ? functions : otherFunctions) {
+        function.mergeValue(record);
+      }
+    }
+    layout.merge(state, roundTrip(otherState));
+    for (int i = 0; i < functions.size(); i++) {
+      functions.get(i).mergeAggregates(otherFunctions.get(i));
+    }
+
+    Assert.assertEquals(functions.size(), layout.size());
+    for (int i = 0; i < functions.size(); i++) {
+      Assert.assertEquals(functions.get(i).getClass().getSimpleName(),
+                          functions.get(i).getAggregate(), layout.getAggregate(i, state));
+    }
+  }
+
+  private NumericAggregateState roundTrip(NumericAggregateState state) throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(state);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      return (NumericAggregateState) ois.readObject();
+    }
+  }
+}
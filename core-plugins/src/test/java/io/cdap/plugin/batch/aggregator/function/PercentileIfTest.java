@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link PercentileIf}, {@link MedianIf} and {@link ApproxQuantilesIf}.
+ */
+public class PercentileIfTest extends AggregateFunctionTest {
+  private static final Schema SCHEMA = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+
+  @Test
+  public void testPercentileCondition() {
+    String condition = "x>0";
+    test(new PercentileIf("x", Schema.of(Schema.Type.INT), 1d, JexlCondition.of(condition)), SCHEMA, "x",
+         200d, Arrays.asList(-10, 0, 3, 100, 200, 7), new PercentileIf("x", Schema.of(Schema.Type.INT), 1d,
+                                                                       JexlCondition.of(condition)));
+  }
+
+  @Test
+  public void testMedianCondition() {
+    String condition = "x<100";
+    test(new MedianIf("x", Schema.of(Schema.Type.INT), JexlCondition.of(condition)), SCHEMA, "x",
+         1.5d, Arrays.asList(-10, 0, 3, 100, 200, 7), new MedianIf("x", Schema.of(Schema.Type.INT),
+                                                                   JexlCondition.of(condition)));
+  }
+
+  @Test
+  public void testApproxQuantilesCondition() {
+    String condition = "x!=3";
+    test(new ApproxQuantilesIf("x", Schema.of(Schema.Type.INT), 2, JexlCondition.of(condition)), SCHEMA, "x",
+         Arrays.asList(-10d, 7d, 200d), Arrays.asList(-10, 0, 3, 100, 200, 7),
+         new ApproxQuantilesIf("x", Schema.of(Schema.Type.INT), 2, JexlCondition.of(condition)));
+  }
+}
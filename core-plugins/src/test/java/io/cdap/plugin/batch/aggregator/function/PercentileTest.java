@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link Percentile} and {@link Median}, including the accuracy of the {@link TDigest} they are based on.
+ */
+public class PercentileTest extends AggregateFunctionTest {
+  private static final Schema INT_SCHEMA = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+
+  @Test
+  public void testExactForSmallGroups() {
+    test(new Median("x", Schema.of(Schema.Type.INT)), INT_SCHEMA, "x", 3d, Arrays.asList(5, 1, 4, 2, 3),
+         new Median("x", Schema.of(Schema.Type.INT)));
+    test(new Median("x", Schema.of(Schema.Type.INT)), INT_SCHEMA, "x", 2.5d, Arrays.asList(4, 1, 3, 2),
+         new Median("x", Schema.of(Schema.Type.INT)));
+    test(new Percentile("x", Schema.of(Schema.Type.INT), 0d), INT_SCHEMA, "x", -10d, Arrays.asList(3, -10, 100, 0),
+         new Percentile("x", Schema.of(Schema.Type.INT), 0d));
+    test(new Percentile("x", Schema.of(Schema.Type.INT), 1d), INT_SCHEMA, "x", 100d, Arrays.asList(3, -10, 100, 0),
+         new Percentile("x", Schema.of(Schema.Type.INT), 1d));
+    test(new Percentile("x", Schema.of(Schema.Type.INT), 0.25d), INT_SCHEMA, "x", 7d, Arrays.asList(7),
+         new Percentile("x", Schema.of(Schema.Type.INT), 0.25d));
+  }
+
+  @Test
+  public void testNulls() {
+    Schema fieldSchema = Schema.nullableOf(Schema.of(Schema.Type.DOUBLE));
+    Schema schema = Schema.recordOf("x", Schema.Field.of("x", fieldSchema));
+    Assert.assertEquals(fieldSchema, new Median("x", fieldSchema).getOutputSchema());
+    test(new Median("x", fieldSchema), schema, "x", 2d, Arrays.asList(null, 1d, null, 3d),
+         new Median("x", fieldSchema));
+    test(new Median("x", fieldSchema), schema, "x", null, Arrays.asList(null, null),
+         new Median("x", fieldSchema));
+  }
+
+  @Test
+  public void testAccuracyAgainstExact() throws Exception {
+    Random random = new Random(42);
+    List<Double> values = new ArrayList<>();
+    for (int i = 0; i < 200000; i++) {
+      values.add(Math.exp(random.nextGaussian()));
+    }
+    List<Double> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+
+    for (double p : new double[] { 0.001d, 0.01d, 0.1d, 0.5d, 0.9d, 0.99d, 0.999d }) {
+      Schema fieldSchema = Schema.of(Schema.Type.DOUBLE);
+      Schema schema = Schema.recordOf("x", Schema.Field.of("x", fieldSchema));
+      double estimate = (Double) getAggregateMultiplePartitions(() -> new Percentile("x", fieldSchema, p), schema,
+                                                                "x", values.iterator());
+      // compare ranks rather than values, since the error of a t-digest is bounded in quantile space,
+      // and is smaller near the tails
+      double rank = (double) Math.abs(Collections.binarySearch(sorted, estimate)) / sorted.size();
+      Assert.assertEquals("percentile " + p, p, rank, Math.min(0.002d, p * (1 - p) / 2));
+    }
+  }
+
+  @Test
+  public void testBoundedSize() throws Exception {
+    TDigest small = new TDigest(TDigest.DEFAULT_COMPRESSION);
+    TDigest large = new TDigest(TDigest.DEFAULT_COMPRESSION);
+    for (int i = 0; i < 1000; i++) {
+      small.add(i);
+    }
+    for (int i = 0; i < 1000000; i++) {
+      large.add(i);
+    }
+    Assert.assertEquals(1000000L, large.getCount());
+    Assert.assertTrue(serializedSize(large) <= serializedSize(small) * 2);
+
+    TDigest copy = roundTrip(large);
+    Assert.assertEquals(large.getCount(), copy.getCount());
+    Assert.assertEquals(large.quantile(0.3d), copy.quantile(0.3d), 0d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new Percentile("x", Schema.of(Schema.Type.INT), 90d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonNumericField() {
+    new Median("x", Schema.of(Schema.Type.STRING));
+  }
+
+  private static int serializedSize(TDigest digest) throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(digest);
+    }
+    return bos.size();
+  }
+
+  private static TDigest roundTrip(TDigest digest) throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(digest);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      return (TDigest) ois.readObject();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests for {@link RunningVariance}.
+ */
+public class RunningVarianceTest {
+
+  @Test
+  public void testVariance() {
+    RunningVariance stats = new RunningVariance();
+    Assert.assertEquals(0d, stats.variance(), 0d);
+    for (double value : new double[] {5, 6, 10, 14, 15}) {
+      stats.push(value);
+    }
+    Assert.assertEquals(5L, stats.count());
+    Assert.assertEquals(10d, stats.mean(), 0.000001);
+    Assert.assertEquals(16.4d, stats.variance(), 0.000001);
+    Assert.assertEquals(4.04969, stats.stddev(), 0.00001);
+  }
+
+  @Test
+  public void testLargeOffset() {
+    RunningVariance single = new RunningVariance();
+    RunningVariance merged = new RunningVariance();
+    RunningVariance other = new RunningVariance();
+    double[] values = {1e9d + 4, 1e9d + 7, 1e9d + 13, 1e9d + 16};
+    for (int i = 0; i < values.length; i++) {
+      single.push(values[i]);
+      (i % 2 == 0 ? merged : other).push(values[i]);
+    }
+    merged.merge(other);
+    for (RunningVariance stats : new RunningVariance[] {single, merged}) {
+      Assert.assertEquals(1e9d + 10, stats.mean(), 0.000001);
+      Assert.assertEquals(22.5d, stats.variance(), 0.000001);
+    }
+  }
+
+  @Test
+  public void testMerge() {
+    Random random = new Random(7);
+    double[] values = new double[2001];
+    RunningVariance expected = new RunningVariance();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextGaussian() * 100 + 50;
+      expected.push(values[i]);
+    }
+
+    RunningVariance merged = new RunningVariance();
+    for (int from = 0; from < values.length; from += 301) {
+      int to = Math.min(values.length, from + 301);
+      RunningVariance part = new RunningVariance();
+      for (int i = from; i < to; i++) {
+        part.push(values[i]);
+      }
+      merged.merge(part);
+    }
+    merged.merge(new RunningVariance());
+
+    Assert.assertEquals(expected.count(), merged.count());
+    Assert.assertEquals(expected.mean(), merged.mean(), 0.0000001);
+    Assert.assertEquals(expected.variance(), merged.variance(), 0.000001);
+  }
+}
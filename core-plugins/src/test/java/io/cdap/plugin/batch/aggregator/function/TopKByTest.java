@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link TopKBy}.
+ */
+public class TopKByTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "purchases",
+    Schema.Field.of("product", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("price", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+
+  @Test
+  public void testTopKBy() {
+    TopKBy<String> topK = new TopKBy<>("product", Schema.of(Schema.Type.STRING), "price", 3);
+    TopKBy<String> other = new TopKBy<>("product", Schema.of(Schema.Type.STRING), "price", 3);
+    topK.initialize();
+    other.initialize();
+    List<StructuredRecord> records = Arrays.asList(
+      record("hat", 5d), record("island", 1000000d), record("shirt", 20d), record("gum", null),
+      record("car", 20000d), record("pen", 1d), record("boat", 50000d), record("sock", 2d));
+    for (int i = 0; i < records.size(); i++) {
+      (i % 2 == 0 ? topK : other).mergeValue(records.get(i));
+    }
+    topK.mergeAggregates(other);
+    Assert.assertEquals(Arrays.asList("island", "boat", "car"), topK.getAggregate());
+    Assert.assertEquals(Schema.arrayOf(Schema.of(Schema.Type.STRING)), topK.getOutputSchema());
+  }
+
+  @Test
+  public void testFewerRecordsThanK() {
+    TopKBy<String> topK = new TopKBy<>("product", Schema.of(Schema.Type.STRING), "price", 3);
+    topK.initialize();
+    topK.mergeValue(record("hat", 5d));
+    topK.mergeValue(record("shirt", 20d));
+    Assert.assertEquals(Arrays.asList("shirt", "hat"), topK.getAggregate());
+  }
+
+  @Test
+  public void testTies() {
+    // ties keep the smallest values, whichever partition they are in
+    List<StructuredRecord> records = Arrays.asList(
+      record("shirt", 20d), record("hat", 20d), record("sock", 20d), record("island", 100d), record("pen", 20d));
+    for (int split = 0; split <= records.size(); split++) {
+      TopKBy<String> topK = new TopKBy<>("product", Schema.of(Schema.Type.STRING), "price", 3);
+      TopKBy<String> other = new TopKBy<>("product", Schema.of(Schema.Type.STRING), "price", 3);
+      topK.initialize();
+      other.initialize();
+      for (int i = 0; i < records.size(); i++) {
+        (i < split ? other : topK).mergeValue(records.get((i + split) % records.size()));
+      }
+      topK.mergeAggregates(other);
+      Assert.assertEquals(Arrays.asList("island", "hat", "pen"), topK.getAggregate());
+    }
+  }
+
+  private static StructuredRecord record(String product, Double price) {
+    return StructuredRecord.builder(SCHEMA).set("product", product).set("price", price).build();
+  }
+}
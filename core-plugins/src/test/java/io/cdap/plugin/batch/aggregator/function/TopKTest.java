@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.batch.aggregator.function;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link TopK}.
+ */
+public class TopKTest extends AggregateFunctionTest {
+  private static final Schema FIELD_SCHEMA = Schema.nullableOf(Schema.of(Schema.Type.STRING));
+  private static final Schema SCHEMA = Schema.recordOf("purchases", Schema.Field.of("product", FIELD_SCHEMA));
+
+  @Test
+  public void testSmallGroup() {
+    test(new TopK<String>("product", FIELD_SCHEMA, 2), SCHEMA, "product", Arrays.asList("shirt", "island"),
+         Arrays.asList("island", "shirt", null, "shirt", "hat", null, "island", "shirt", null),
+         new TopK<String>("product", FIELD_SCHEMA, 2));
+    // ties are ordered by value
+    test(new TopK<String>("product", FIELD_SCHEMA, 10), SCHEMA, "product", Arrays.asList("a", "b", "c"),
+         Arrays.asList("c", "b", "a"), new TopK<String>("product", FIELD_SCHEMA, 10));
+    test(new TopK<String>("product", FIELD_SCHEMA, 3), SCHEMA, "product", Collections.emptyList(),
+         Arrays.asList(null, null), new TopK<String>("product", FIELD_SCHEMA, 3));
+  }
+
+  @Test
+  public void testHeavyHittersAmongManyValues() {
+    // a few frequent products hidden among many products that appear once or twice
+    Random random = new Random(7);
+    List<String> products = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      products.add("rare" + random.nextInt(50000));
+    }
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5000 - i * 500; j++) {
+        products.add("frequent" + i);
+      }
+    }
+    Collections.shuffle(products, random);
+
+    Object topK = getAggregateMultiplePartitions(() -> new TopK<String>("product", FIELD_SCHEMA, 5), SCHEMA,
+                                                 "product", products.iterator());
+    Assert.assertEquals(Arrays.asList("frequent0", "frequent1", "frequent2", "frequent3", "frequent4"), topK);
+  }
+
+  @Test
+  public void testBytes() {
+    Schema bytesSchema = Schema.nullableOf(Schema.of(Schema.Type.BYTES));
+    Schema schema = Schema.recordOf("files", Schema.Field.of("hash", bytesSchema));
+    // equal contents in different arrays and buffers are counted together
+    ByteBuffer buffer = ByteBuffer.wrap(bytes("xbc"));
+    buffer.get();
+    Object topK = getAggregate(new TopK<Object>("hash", bytesSchema, 2), schema, "hash",
+                               Arrays.asList(bytes("a"), bytes("bc"), ByteBuffer.wrap(bytes("a")), bytes("d"),
+                                             buffer, bytes("bc"), null, bytes("a")),
+                               new TopK<Object>("hash", bytesSchema, 2));
+    List<?> values = (List<?>) topK;
+    Assert.assertEquals(2, values.size());
+    Assert.assertArrayEquals(bytes("a"), (byte[]) values.get(0));
+    Assert.assertArrayEquals(bytes("bc"), (byte[]) values.get(1));
+    // the buffer is not consumed
+    Assert.assertEquals(1, buffer.position());
+  }
+
+  @Test
+  public void testOutputSchema() {
+    Assert.assertEquals(Schema.arrayOf(FIELD_SCHEMA), new TopK<String>("product", FIELD_SCHEMA, 3).getOutputSchema());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidK() {
+    new TopK<String>("product", FIELD_SCHEMA, 0);
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -76,6 +76,8 @@ public class VarianceTest extends NumberTest {
     testFunction(variance, schema, variance1, 2.91666666d, 1d, 2d, 3d, 4d, 5d, 6d);
     testFunction(variance, schema, variance1, 1986.6875d, -10d, 0d, 3d, 100d);
     testFunction(variance, schema, variance1, 0.00175519d, 0d, 0.1d, 0.01d, 0.001d);
+    // a large offset would cancel out the variance if it were computed from the mean of the squares
+    testFunction(variance, schema, variance1, 22.5d, 1e9d + 4, 1e9d + 7, 1e9d + 13, 1e9d + 16);
 
     Supplier<AggregateFunction> supplier = () -> new Variance("x", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE)));
     testFunctionSinglePartition(supplier, schema, 200394289.55525592d, getScoresDoubleIterator());
@@ -27,6 +27,7 @@ import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.LookupConfig;
 import io.cdap.cdap.etl.api.LookupTableConfig;
 import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.validation.ValidationException;
 import io.cdap.cdap.etl.mock.common.MockEmitter;
 import io.cdap.cdap.etl.mock.common.MockLookupProvider;
 import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
@@ -167,6 +168,110 @@ public class JavaScriptTransformTest {
     Assert.assertEquals(expectedListField, output.get("arrayField"));
   }
 
+  @Test
+  public void testCompiledMode() throws Exception {
+    JavaScriptTransform.Config config = new JavaScriptTransform.Config(
+      "function transform(x, emitter, context) { x.intField = x.intField * 1024; emitter.emit(x); }", null, null,
+      "compiled");
+    Transform<StructuredRecord, StructuredRecord> transform = new JavaScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(RECORD1, emitter);
+    transform.transform(RECORD2, emitter);
+    StructuredRecord output = emitter.getEmitted().get(0);
+    Assert.assertEquals(SCHEMA, output.getSchema());
+    Assert.assertEquals(28 * 1024, output.<Integer>get("intField").intValue());
+    Assert.assertEquals(99L, output.<Long>get("longField").longValue());
+    Assert.assertArrayEquals(Bytes.toBytes("foo"), (byte[]) output.get("bytesField"));
+    Assert.assertEquals("baz", output.get("nullableField"));
+    Assert.assertEquals("hello", output.get("unionField"));
+    Assert.assertEquals(ImmutableMap.of("foo", 13, "bar", 17), output.get("mapField"));
+    Assert.assertEquals(ImmutableList.of("foo", "bar", "baz"), output.get("arrayField"));
+
+    // fields that are not set by the script are passed through as they are
+    output = emitter.getEmitted().get(1);
+    Assert.assertEquals(-28 * 1024, output.<Integer>get("intField").intValue());
+    Assert.assertEquals(ByteBuffer.wrap(Bytes.toBytes("hello")), output.get("bytesField"));
+    Assert.assertNull(output.get("nullableField"));
+    Assert.assertEquals(3, output.<Integer>get("unionField").intValue());
+    emitter.clear();
+
+    // records that are emitted unchanged are not copied
+    config = new JavaScriptTransform.Config(
+      "function transform(x, emitter, context) { if (x.booleanField) { emitter.emit(x); } }", null, null, "compiled");
+    transform = new JavaScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+    transform.transform(RECORD1, emitter);
+    transform.transform(RECORD2, emitter);
+    Assert.assertEquals(1, emitter.getEmitted().size());
+    Assert.assertSame(RECORD1, emitter.getEmitted().get(0));
+  }
+
+  @Test
+  public void testCompiledModeNestedRecords() throws Exception {
+    Schema innerSchema = Schema.recordOf(
+      "inner",
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("val", Schema.of(Schema.Type.DOUBLE)));
+    Schema schema = Schema.recordOf(
+      "outer",
+      Schema.Field.of("num", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("inner", innerSchema),
+      Schema.Field.of("list", Schema.arrayOf(Schema.mapOf(Schema.of(Schema.Type.STRING), innerSchema))));
+    StructuredRecord pi = StructuredRecord.builder(innerSchema).set("name", "pi").set("val", 3.14).build();
+    StructuredRecord e = StructuredRecord.builder(innerSchema).set("name", "e").set("val", 2.71).build();
+    StructuredRecord input = StructuredRecord.builder(schema)
+      .set("num", 8)
+      .set("inner", pi)
+      .set("list", Lists.newArrayList(ImmutableMap.of("e", e)))
+      .build();
+
+    JavaScriptTransform.Config config = new JavaScriptTransform.Config(
+      "function transform(input, emitter, context) {\n" +
+        "  input.inner.val = input.inner.val * 2 + input.list[0].e.val;\n" +
+        "  input.num = input.list.length;\n" +
+        "  emitter.emit(input);\n" +
+        "}",
+      null, null, "compiled");
+    Transform<StructuredRecord, StructuredRecord> transform = new JavaScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(input, emitter);
+    StructuredRecord output = emitter.getEmitted().get(0);
+    Assert.assertEquals(schema, output.getSchema());
+    Assert.assertEquals(1, output.<Integer>get("num").intValue());
+    StructuredRecord inner = output.get("inner");
+    Assert.assertEquals("pi", inner.get("name"));
+    Assert.assertEquals(3.14 * 2 + 2.71, inner.<Double>get("val"), 0.000001);
+    Assert.assertSame(input.get("list"), output.get("list"));
+
+    // records and their fields can be emitted as part of new objects
+    Schema outputSchema = Schema.recordOf(
+      "output",
+      Schema.Field.of("x", innerSchema),
+      Schema.Field.of("y", Schema.arrayOf(Schema.mapOf(Schema.of(Schema.Type.STRING), innerSchema))));
+    config = new JavaScriptTransform.Config(
+      "function transform(input, emitter, context) { emitter.emit({ 'x': input.list[0].e, 'y': input.list }); }",
+      outputSchema.toString(), null, "compiled");
+    transform = new JavaScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+    emitter.clear();
+    transform.transform(input, emitter);
+    output = emitter.getEmitted().get(0);
+    Assert.assertEquals(outputSchema, output.getSchema());
+    Assert.assertSame(e, output.get("x"));
+    Assert.assertEquals(input.get("list"), output.get("y"));
+  }
+
+  @Test(expected = ValidationException.class)
+  public void testInvalidExecutionMode() throws Exception {
+    JavaScriptTransform.Config config = new JavaScriptTransform.Config(
+      "function transform(x, emitter, context) { emitter.emit(x); }", null, null, "interpreted");
+    new JavaScriptTransform(config).configurePipeline(new MockPipelineConfigurer(SCHEMA, Collections.emptyMap()));
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Schema outputSchema = Schema.recordOf(
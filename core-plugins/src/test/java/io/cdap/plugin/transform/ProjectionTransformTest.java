@@ -30,7 +30,9 @@ import io.cdap.cdap.etl.mock.transform.MockTransformContext;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Test class for {@link ProjectionTransform}
@@ -327,6 +329,39 @@ public class ProjectionTransformTest {
     Assert.assertEquals("10", output.get("x"));
   }
 
+  @Test
+  public void testMultipleInputSchemas() throws Exception {
+    Schema schema1 = Schema.recordOf("record1",
+                                     Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                     Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+    Schema schema2 = Schema.recordOf("record2",
+                                     Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                     Schema.Field.of("z", Schema.of(Schema.Type.BOOLEAN)));
+    ProjectionTransform.ProjectionTransformConfig config = new ProjectionTransform
+      .ProjectionTransformConfig(null, "y:w", "y:long", null);
+    Transform<StructuredRecord, StructuredRecord> transform = new ProjectionTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(schema1).set("x", 1).set("y", 2).build(), emitter);
+    transform.transform(StructuredRecord.builder(schema2).set("y", "3").set("z", true).build(), emitter);
+    transform.transform(StructuredRecord.builder(schema1).set("x", 4).set("y", null).build(), emitter);
+    transform.transform(StructuredRecord.builder(schema2).set("y", null).set("z", false).build(), emitter);
+
+    Schema expectedSchema1 = Schema.recordOf("record1.projected",
+                                             Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                             Schema.Field.of("w", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    Schema expectedSchema2 = Schema.recordOf("record2.projected",
+                                             Schema.Field.of("w", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+                                             Schema.Field.of("z", Schema.of(Schema.Type.BOOLEAN)));
+    List<StructuredRecord> expected = Arrays.asList(
+      StructuredRecord.builder(expectedSchema1).set("x", 1).set("w", 2L).build(),
+      StructuredRecord.builder(expectedSchema2).set("w", 3L).set("z", true).build(),
+      StructuredRecord.builder(expectedSchema1).set("x", 4).set("w", null).build(),
+      StructuredRecord.builder(expectedSchema2).set("w", null).set("z", false).build());
+    Assert.assertEquals(expected, emitter.getEmitted());
+  }
+
   @Test
   public void testConvertToString() throws Exception {
     ProjectionTransform.ProjectionTransformConfig config = new ProjectionTransform
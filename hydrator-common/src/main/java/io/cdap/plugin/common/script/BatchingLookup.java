@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.common.script;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * {@link Lookup} that caches the values of a delegate, including the keys that are absent from the delegate, so that
+ * they are not read again until they expire.
+ *
+ * Keys are only read from the delegate in batches when the caller asks for several keys at once, with
+ * {@link #lookup(Set)} or by prefetching keys before looking them up. Prefetched keys are queued, and read from the
+ * delegate together with the next key that is not in the cache, or as soon as a full batch is queued. No more than
+ * the batch size of keys are read from the delegate at once. Callers that look up one key at a time, without
+ * prefetching, read one key at a time on every cache miss.
+ *
+ * The lookup reports the following metrics, if given a {@link StageMetrics}, with the given metric prefix:
+ * <ul>
+ *   <li>{@value #HITS_METRIC}: the number of lookups of keys that were in the cache</li>
+ *   <li>{@value #MISSES_METRIC}: the number of lookups of keys that were not in the cache</li>
+ *   <li>{@value #LOADS_METRIC}: the number of batches read from the delegate</li>
+ *   <li>{@value #LOAD_MILLIS_METRIC}: the time spent reading batches from the delegate, in milliseconds. Divided by
+ *   the number of batches, this gives the load latency</li>
+ * </ul>
+ *
+ * This class is not thread safe.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class BatchingLookup<T> implements Lookup<T> {
+  public static final int DEFAULT_BATCH_SIZE = 100;
+  static final String HITS_METRIC = "cache.hits";
+  static final String MISSES_METRIC = "cache.misses";
+  static final String LOADS_METRIC = "loads";
+  static final String LOAD_MILLIS_METRIC = "load.millis";
+  private static final int METRICS_INTERVAL = 1024;
+  // cached for keys that are absent from the delegate, since the cache does not hold null values
+  private static final Object ABSENT = new Object();
+
+  private final Lookup<T> delegate;
+  private final Cache<String, Object> cache;
+  private final int batchSize;
+  @Nullable
+  private final StageMetrics metrics;
+  private final String metricPrefix;
+  // prefetched keys that were not read yet
+  private final Set<String> queued = new LinkedHashSet<>();
+
+  private long hits;
+  private long misses;
+  private long loads;
+  private int unreportedHits;
+  private int unreportedMisses;
+
+  public BatchingLookup(Lookup<T> delegate, CacheConfig cacheConfig) {
+    this(delegate, cacheConfig, DEFAULT_BATCH_SIZE, null, "");
+  }
+
+  /**
+   * @param delegate the lookup to read values from
+   * @param cacheConfig the size and expiry of the cache
+   * @param batchSize the maximum number of keys that are read from the delegate at once
+   * @param metrics metrics to report the hits, misses and loads to, if any
+   * @param metricPrefix the prefix of the metric names
+   */
+  public BatchingLookup(Lookup<T> delegate, CacheConfig cacheConfig, int batchSize, @Nullable StageMetrics metrics,
+                        String metricPrefix) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException(String.format("The batch size must be at least 1, but is %d.", batchSize));
+    }
+    this.delegate = delegate;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(cacheConfig.getMaxSize())
+      .expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS)
+      .build();
+    this.batchSize = batchSize;
+    this.metrics = metrics;
+    this.metricPrefix = metricPrefix;
+  }
+
+  @Override
+  public T lookup(String key) {
+    Object value = getCached(key);
+    if (value != null) {
+      return unwrap(value);
+    }
+
+    Set<String> batch = new LinkedHashSet<>();
+    batch.add(key);
+    takeQueued(batch);
+    return load(batch).get(key);
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> result = new HashMap<>();
+    Set<String> missing = new LinkedHashSet<>();
+    for (String key : keys) {
+      Object value = getCached(key);
+      if (value == null) {
+        missing.add(key);
+      } else if (value != ABSENT) {
+        result.put(key, unwrap(value));
+      }
+    }
+
+    Iterator<String> iterator = missing.iterator();
+    while (iterator.hasNext()) {
+      Set<String> batch = new LinkedHashSet<>();
+      while (batch.size() < batchSize && iterator.hasNext()) {
+        batch.add(iterator.next());
+      }
+      if (!iterator.hasNext()) {
+        // the last batch is completed with prefetched keys
+        takeQueued(batch);
+      }
+      Map<String, T> values = load(batch);
+      for (String key : batch) {
+        T value = values.get(key);
+        if (value != null && keys.contains(key)) {
+          result.put(key, value);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Queues the given keys to be read from the delegate with the next batch, unless they are cached. Full batches are
+   * read right away.
+   */
+  public void prefetch(Collection<String> keys) {
+    for (String key : keys) {
+      if (cache.getIfPresent(key) == null) {
+        queued.add(key);
+      }
+    }
+    while (queued.size() >= batchSize) {
+      Set<String> batch = new LinkedHashSet<>();
+      takeQueued(batch);
+      load(batch);
+    }
+  }
+
+  long getHits() {
+    return hits;
+  }
+
+  long getMisses() {
+    return misses;
+  }
+
+  long getLoads() {
+    return loads;
+  }
+
+  /**
+   * @return the cached value of the key, or null if it is not cached
+   */
+  @Nullable
+  private Object getCached(String key) {
+    Object value = cache.getIfPresent(key);
+    if (value == null) {
+      misses++;
+      unreportedMisses++;
+    } else {
+      hits++;
+      unreportedHits++;
+    }
+    maybeReportMetrics();
+    return value;
+  }
+
+  /**
+   * Moves queued keys to the given batch, until it is full.
+   */
+  private void takeQueued(Set<String> batch) {
+    Iterator<String> iterator = queued.iterator();
+    while (batch.size() < batchSize && iterator.hasNext()) {
+      batch.add(iterator.next());
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Reads the given keys from the delegate, and caches their values.
+   */
+  private Map<String, T> load(Set<String> batch) {
+    long start = System.nanoTime();
+    Map<String, T> values = delegate.lookup(batch);
+    for (String key : batch) {
+      T value = values.get(key);
+      cache.put(key, value == null ? ABSENT : value);
+      // keys that were looked up before their prefetched batch was read
+      queued.remove(key);
+    }
+    loads++;
+    if (metrics != null) {
+      metrics.count(metricPrefix + LOADS_METRIC, 1);
+      metrics.count(metricPrefix + LOAD_MILLIS_METRIC,
+                    (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    return values;
+  }
+
+  private void maybeReportMetrics() {
+    if (metrics == null || unreportedHits + unreportedMisses < METRICS_INTERVAL) {
+      return;
+    }
+    metrics.count(metricPrefix + HITS_METRIC, unreportedHits);
+    metrics.count(metricPrefix + MISSES_METRIC, unreportedMisses);
+    unreportedHits = 0;
+    unreportedMisses = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private T unwrap(Object value) {
+    return value == ABSENT ? null : (T) value;
+  }
+}
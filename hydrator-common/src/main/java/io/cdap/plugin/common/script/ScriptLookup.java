@@ -17,8 +17,11 @@ package io.cdap.plugin.common.script;
 
 import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.LookupTableConfig;
+import io.cdap.cdap.etl.api.StageMetrics;
 
+import java.util.Arrays;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Provides JavaScript-friendly lookup functions.
@@ -28,11 +31,25 @@ public class ScriptLookup {
   private final Lookup<Object> delegate;
   private final JavaTypeConverters js;
   private final LookupTableConfig config;
+  @Nullable
+  private final BatchingLookup<Object> batchingLookup;
 
   public ScriptLookup(Lookup<Object> delegate, LookupTableConfig config, JavaTypeConverters js) {
+    this(delegate, config, js, null, "");
+  }
+
+  public ScriptLookup(Lookup<Object> delegate, LookupTableConfig config, JavaTypeConverters js,
+                      @Nullable StageMetrics metrics, String metricPrefix) {
     this.config = config;
     this.js = js;
-    this.delegate = config.isCacheEnabled() ? new CachingLookup<>(delegate, config.getCacheConfig()) : delegate;
+    if (config.isCacheEnabled()) {
+      this.batchingLookup = new BatchingLookup<>(delegate, config.getCacheConfig(), BatchingLookup.DEFAULT_BATCH_SIZE,
+                                                 metrics, metricPrefix);
+      this.delegate = batchingLookup;
+    } else {
+      this.batchingLookup = null;
+      this.delegate = delegate;
+    }
   }
 
   public Object lookup(String key) {
@@ -47,4 +64,14 @@ public class ScriptLookup {
   public Object lookup(Set<String> keys) {
     return js.mapToJSObject(delegate.lookup(keys));
   }
+
+  /**
+   * Queues keys that are about to be looked up, so that they are read together with the next key that is not
+   * cached. Does nothing if caching is disabled for the table.
+   */
+  public void prefetch(String... keys) {
+    if (batchingLookup != null) {
+      batchingLookup.prefetch(Arrays.asList(keys));
+    }
+  }
 }
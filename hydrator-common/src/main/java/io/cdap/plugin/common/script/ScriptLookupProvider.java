@@ -19,6 +19,11 @@ import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.etl.api.LookupConfig;
 import io.cdap.cdap.etl.api.LookupProvider;
 import io.cdap.cdap.etl.api.LookupTableConfig;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * {@link LookupProvider} implementation.
@@ -27,14 +32,28 @@ public class ScriptLookupProvider {
 
   private final LookupProvider delegate;
   private final LookupConfig config;
+  @Nullable
+  private final StageMetrics metrics;
+  // lookups are only created once per converters and table, so that their caches are kept across records
+  private final Map<JavaTypeConverters, Map<String, ScriptLookup>> lookups = new HashMap<>();
 
   public ScriptLookupProvider(LookupProvider delegate, LookupConfig config) {
+    this(delegate, config, null);
+  }
+
+  public ScriptLookupProvider(LookupProvider delegate, LookupConfig config, @Nullable StageMetrics metrics) {
     this.delegate = delegate;
     this.config = config;
+    this.metrics = metrics;
   }
 
   @SuppressWarnings("unchecked")
   public ScriptLookup provide(String table, JavaTypeConverters converters) {
+    Map<String, ScriptLookup> tableLookups = lookups.computeIfAbsent(converters, c -> new HashMap<>());
+    ScriptLookup lookup = tableLookups.get(table);
+    if (lookup != null) {
+      return lookup;
+    }
     if (config == null) {
       throw new RuntimeException("Missing lookup configuration");
     }
@@ -45,6 +64,9 @@ public class ScriptLookupProvider {
     }
 
     DatasetProperties arguments = DatasetProperties.builder().addAll(tableConfig.getDatasetProperties()).build();
-    return new ScriptLookup(delegate.provide(table, arguments.getProperties()), tableConfig, converters);
+    lookup = new ScriptLookup(delegate.provide(table, arguments.getProperties()), tableConfig, converters, metrics,
+                              String.format("lookup.%s.", table));
+    tableLookups.put(table, lookup);
+    return lookup;
   }
 }
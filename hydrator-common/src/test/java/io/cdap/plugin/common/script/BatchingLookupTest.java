@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.common.script;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link BatchingLookup}.
+ */
+public class BatchingLookupTest {
+
+  @Test
+  public void testNegativeCaching() {
+    CountingLookup delegate = new CountingLookup(backing(10));
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, new CacheConfig(60, 100));
+
+    Assert.assertEquals("1", lookup.lookup("foo1"));
+    Assert.assertNull(lookup.lookup("bar"));
+    Assert.assertEquals("1", lookup.lookup("foo1"));
+    Assert.assertNull(lookup.lookup("bar"));
+    Assert.assertEquals(2, delegate.batches.size());
+    Assert.assertEquals(2L, lookup.getHits());
+    Assert.assertEquals(2L, lookup.getMisses());
+
+    Assert.assertEquals(ImmutableMap.of("foo1", "1", "foo2", "2"), lookup.lookup("foo1", "foo2", "bar", "baz"));
+    Assert.assertEquals(ImmutableSet.of("foo2", "baz"), delegate.batches.get(2));
+    Assert.assertEquals(ImmutableMap.of("foo2", "2"), lookup.lookup("foo2", "baz"));
+    Assert.assertEquals(3, delegate.batches.size());
+  }
+
+  @Test
+  public void testPrefetch() {
+    CountingLookup delegate = new CountingLookup(backing(100));
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, new CacheConfig(60, 1000), 10, null, "");
+
+    // prefetched keys are read with the next miss
+    lookup.prefetch(Arrays.asList("foo2", "foo3", "foo4"));
+    Assert.assertTrue(delegate.batches.isEmpty());
+    Assert.assertEquals("1", lookup.lookup("foo1"));
+    Assert.assertEquals(ImmutableSet.of("foo1", "foo2", "foo3", "foo4"), delegate.batches.get(0));
+    Assert.assertEquals("3", lookup.lookup("foo3"));
+    Assert.assertEquals(1, delegate.batches.size());
+
+    // cached keys are not queued, and full batches are read right away
+    List<String> keys = new ArrayList<>();
+    for (int i = 1; i <= 25; i++) {
+      keys.add("foo" + i);
+    }
+    lookup.prefetch(keys);
+    Assert.assertEquals(3, delegate.batches.size());
+    Assert.assertEquals(10, delegate.batches.get(1).size());
+    Assert.assertEquals(10, delegate.batches.get(2).size());
+    Assert.assertFalse(delegate.batches.get(1).contains("foo1"));
+    Assert.assertEquals("25", lookup.lookup("foo25"));
+    Assert.assertEquals(ImmutableSet.of("foo25"), delegate.batches.get(3));
+    for (int i = 1; i <= 25; i++) {
+      Assert.assertEquals(Integer.toString(i), lookup.lookup("foo" + i));
+    }
+    Assert.assertEquals(4, delegate.batches.size());
+  }
+
+  @Test
+  public void testBatchSize() {
+    CountingLookup delegate = new CountingLookup(backing(10));
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, new CacheConfig(60, 1000), 2, null, "");
+
+    lookup.prefetch(Arrays.asList("foo6"));
+    Assert.assertEquals(ImmutableMap.of("foo1", "1", "foo2", "2", "foo3", "3", "foo4", "4"),
+                        lookup.lookup("foo1", "foo2", "foo3", "foo4", "bar"));
+    Assert.assertEquals(3, delegate.batches.size());
+    for (Set<String> batch : delegate.batches) {
+      Assert.assertTrue(batch.size() <= 2);
+    }
+    // the last batch is completed with the prefetched key
+    Assert.assertEquals(ImmutableSet.of("bar", "foo6"), delegate.batches.get(2));
+    Assert.assertEquals("6", lookup.lookup("foo6"));
+    Assert.assertEquals(3, delegate.batches.size());
+  }
+
+  @Test
+  public void testExpiryByTime() throws InterruptedException {
+    Map<String, String> backing = backing(10);
+    CountingLookup delegate = new CountingLookup(backing);
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, new CacheConfig(1, 10));
+
+    Assert.assertEquals(ImmutableMap.of("foo1", "1", "foo2", "2"), lookup.lookup("foo1", "foo2", "bar"));
+    backing.put("foo2", "sdf");
+    backing.put("bar", "baz");
+    Assert.assertEquals("2", lookup.lookup("foo2"));
+    Assert.assertNull(lookup.lookup("bar"));
+    Thread.sleep(1100);
+    Assert.assertEquals(ImmutableMap.of("foo1", "1", "foo2", "sdf", "bar", "baz"),
+                        lookup.lookup("foo1", "foo2", "bar"));
+  }
+
+  @Test
+  public void testExpiryBySize() {
+    Map<String, String> backing = backing(100);
+    CountingLookup delegate = new CountingLookup(backing);
+    BatchingLookup<String> lookup = new BatchingLookup<>(delegate, new CacheConfig(0, 10));
+
+    Assert.assertEquals("1", lookup.lookup("foo1"));
+    // fill the cache and check that the first values cached are removed
+    for (int i = 1; i <= 100; i++) {
+      Assert.assertEquals(Integer.toString(i), lookup.lookup("foo" + i));
+    }
+    backing.put("foo1", "sdf");
+    Assert.assertEquals("sdf", lookup.lookup("foo1"));
+  }
+
+  private static Map<String, String> backing(int size) {
+    Map<String, String> backing = new HashMap<>();
+    for (int i = 1; i <= size; i++) {
+      backing.put("foo" + i, Integer.toString(i));
+    }
+    return backing;
+  }
+
+  private static class CountingLookup implements Lookup<String> {
+    private final Map<String, String> backing;
+    private final List<Set<String>> batches = new ArrayList<>();
+
+    CountingLookup(Map<String, String> backing) {
+      this.backing = backing;
+    }
+
+    @Override
+    public String lookup(String key) {
+      throw new AssertionError("Keys must be looked up in batches");
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      batches.add(ImmutableSet.copyOf(keys));
+      return Maps.filterKeys(backing, Predicates.in(keys));
+    }
+  }
+}
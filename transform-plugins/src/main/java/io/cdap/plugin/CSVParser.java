@@ -41,7 +41,9 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -81,6 +83,18 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
   // List of fields specified in the schema.
   private List<Field> fields;
 
+  // Parsers of the fields specified in the schema, and how they handle empty values, computed once from the schema.
+  private FieldParser[] fieldParsers;
+  private boolean[] emptyAsString;
+  private boolean[] nullable;
+
+  // The schema of the previous input record, and which output fields are present in it.
+  private Schema lastInputSchema;
+  private boolean[] inputFields;
+
+  // Records parsed from the current input, emitted once the whole body has been parsed.
+  private final List<StructuredRecord> parsedRecords = new ArrayList<>();
+
   // Format of CSV.
   private CSVFormat csvFormat = CSVFormat.DEFAULT;
 
@@ -187,6 +201,52 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     } catch (IOException e) {
       throw new IllegalArgumentException("Format of schema specified is invalid. Please check the format.");
     }
+
+    fieldParsers = new FieldParser[fields.size()];
+    emptyAsString = new boolean[fields.size()];
+    nullable = new boolean[fields.size()];
+    for (int i = 0; i < fields.size(); i++) {
+      Schema fieldSchema = fields.get(i).getSchema();
+      nullable[i] = fieldSchema.isNullable();
+      Schema nonNullableSchema = nullable[i] ? fieldSchema.getNonNullable() : fieldSchema;
+      emptyAsString[i] = nonNullableSchema.getType() == Schema.Type.STRING;
+      fieldParsers[i] = createFieldParser(fields.get(i).getName(), nonNullableSchema);
+    }
+    lastInputSchema = null;
+  }
+
+  /**
+   * Parses a non-empty CSV value and sets it on the field it was created for.
+   */
+  private interface FieldParser {
+    void parseAndSet(StructuredRecord.Builder builder, String val);
+  }
+
+  /**
+   * Creates the parser of a field. Simple types are parsed directly, the same way
+   * {@link StructuredRecord.Builder#convertAndSet(String, String)} parses them, so that the type of the field is not
+   * looked up again for every value. Other types are left to the builder.
+   */
+  private static FieldParser createFieldParser(String name, Schema schema) {
+    if (schema.getLogicalType() == null) {
+      switch (schema.getType()) {
+        case STRING:
+          return (builder, val) -> builder.set(name, val);
+        case BOOLEAN:
+          return (builder, val) -> builder.set(name, Boolean.parseBoolean(val));
+        case INT:
+          return (builder, val) -> builder.set(name, Integer.parseInt(val));
+        case LONG:
+          return (builder, val) -> builder.set(name, Long.parseLong(val));
+        case FLOAT:
+          return (builder, val) -> builder.set(name, Float.parseFloat(val));
+        case DOUBLE:
+          return (builder, val) -> builder.set(name, Double.parseDouble(val));
+        default:
+          break;
+      }
+    }
+    return (builder, val) -> builder.convertAndSet(name, val);
   }
 
   @Override
@@ -199,49 +259,80 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
       if (body == null) {
         emitter.emit(createStructuredRecord(null, in));
       } else {
+        // records are built as they are parsed, and only emitted once the whole body is parsed, so that
+        // a malformed body is sent to the error emitter without any of its records
+        parsedRecords.clear();
         org.apache.commons.csv.CSVParser parser = org.apache.commons.csv.CSVParser.parse(body, csvFormat);
-        List<CSVRecord> records = parser.getRecords();
-        for (CSVRecord record : records) {
-          emitter.emit(createStructuredRecord(record, in));
+        Iterator<CSVRecord> records = parser.iterator();
+        while (hasNext(records)) {
+          parsedRecords.add(createStructuredRecord(records.next(), in));
+        }
+        for (StructuredRecord record : parsedRecords) {
+          emitter.emit(record);
         }
       }
     } catch (IOException e) {
       emitter.emitError(new InvalidEntry<>(31, e.getStackTrace()[0].toString() + " : " + e.getMessage(), in));
+    } finally {
+      parsedRecords.clear();
+    }
+  }
+
+  /**
+   * Parses the next record of the iterator, if any.
+   *
+   * @throws IOException if the next record is malformed
+   */
+  private static boolean hasNext(Iterator<CSVRecord> records) throws IOException {
+    try {
+      return records.hasNext();
+    } catch (RuntimeException e) {
+      // the iterator wraps the parse failure of the next record
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
     }
   }
 
   private StructuredRecord createStructuredRecord(@Nullable CSVRecord record, StructuredRecord in) {
+    if (in.getSchema() != lastInputSchema) {
+      inputFields = new boolean[fields.size()];
+      for (int f = 0; f < inputFields.length; f++) {
+        inputFields[f] = in.getSchema().getField(fields.get(f).getName()) != null;
+      }
+      lastInputSchema = in.getSchema();
+    }
+
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
     int i = 0;
-    for (Field field : fields) {
-      String name = field.getName();
+    for (int f = 0; f < fieldParsers.length; f++) {
+      String name = fields.get(f).getName();
       // If the field specified in the output field is present in the input, then
       // it's directly copied into the output, else field is parsed in from the CSV parser.
       // If the input record is null, propagate all supplied input fields and null other fields
       // assumed to be CSV-parsed fields
-      if (in.get(name) != null) {
-        builder.set(name, in.get(name));
+      Object inputVal = inputFields[f] ? in.get(name) : null;
+      if (inputVal != null) {
+        builder.set(name, inputVal);
       } else if (record == null) {
         builder.set(name, null);
       } else {
         String val = record.get(i);
-        Schema fieldSchema = field.getSchema();
 
         if (val.isEmpty()) {
-          boolean isNullable = fieldSchema.isNullable();
-          Schema.Type fieldType = isNullable ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
           // if the field is a string or a nullable string, set the value to the empty string
-          if (fieldType == Schema.Type.STRING) {
-            builder.set(field.getName(), "");
-          } else if (!isNullable) {
+          if (emptyAsString[f]) {
+            builder.set(name, "");
+          } else if (!nullable[f]) {
             // otherwise, error out
             throw new IllegalArgumentException(String.format(
               "Field #%d (named '%s') is of non-nullable type '%s', " +
                 "but was parsed as an empty string for CSV record '%s'",
-              i, field.getName(), field.getSchema().getType(), record));
+              i, name, fields.get(f).getSchema().getType(), record));
           }
         } else {
-          builder.convertAndSet(field.getName(), val);
+          fieldParsers[f].parseAndSet(builder, val);
         }
         ++i;
       }
@@ -19,6 +19,7 @@ package io.cdap.plugin;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
 import io.cdap.cdap.api.annotation.Description;
@@ -69,6 +70,12 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
   // Specifies whether mapping is simple or complex.
   private boolean isSimple = true;
 
+  // Per output field, the JSON path it is mapped to, or null if it is taken from the input. Mapped fields are read
+  // with the simple path if the path only consists of properties and indices, and with the compiled path otherwise.
+  private String[] paths;
+  private SimpleJsonPath[] simplePaths;
+  private JsonPath[] compiledPaths;
+
   // Mainly used for testing.
   public JSONParser(Config config) {
     this.config = config;
@@ -160,9 +167,35 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
       throw collector.getOrThrowException();
     }
     extractMappings(collector);
+    if (!isSimple) {
+      compilePaths(collector);
+    }
     collector.getOrThrowException();
   }
 
+  private void compilePaths(FailureCollector collector) {
+    paths = new String[fields.size()];
+    simplePaths = new SimpleJsonPath[fields.size()];
+    compiledPaths = new JsonPath[fields.size()];
+    for (int i = 0; i < fields.size(); i++) {
+      String name = fields.get(i).getName();
+      String path = mapping.get(name);
+      if (path == null) {
+        continue;
+      }
+      paths[i] = path;
+      simplePaths[i] = SimpleJsonPath.parse(path);
+      if (simplePaths[i] == null) {
+        try {
+          compiledPaths[i] = JsonPath.compile(path);
+        } catch (InvalidPathException e) {
+          collector.addFailure(String.format("Invalid JSON path '%s' for field '%s': %s", path, name, e.getMessage()),
+                               null).withConfigElement(Config.MAPPING, name + ":" + path);
+        }
+      }
+    }
+  }
+
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
     // If it's a simple mapping from JSON to output schema, else we use the mapping fields to map the
@@ -175,24 +208,22 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     // When it's not a simple Json to be parsed, we use the Json path to map the input Json fields into the
     // output schema. In order to optimize for reading multiple paths from the Json we create a document that
     // allows the Json to be parsed only once. We then iterate through the output fields and apply the
-    // path to extract the fields.
+    // path, compiled in initialize, to extract the fields.
     Object document = Configuration.defaultConfiguration().jsonProvider().parse((String) input.get(config.field));
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
-    for (Schema.Field field : fields) {
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
       String name = field.getName();
-      if (mapping.containsKey(name)) {
-        String path = mapping.get(name);
-        try {
-          Object value = JsonPath.read(document, path);
-          builder.set(field.getName(), value);
-        } catch (PathNotFoundException e) {
-          if (field.getSchema().isNullable()) {
-            builder.set(field.getName(), null);
-          } else {
-            LOG.error("Json path '" + path + "' specified for the field '" + name + "' doesn't exist. " +
-                        "Dropping the error record: " + StructuredRecordStringConverter.toJsonString(input));
-            return;
-          }
+      if (paths[i] != null) {
+        Object value = read(i, document);
+        if (value != SimpleJsonPath.NOT_FOUND) {
+          builder.set(name, value);
+        } else if (field.getSchema().isNullable()) {
+          builder.set(name, null);
+        } else {
+          LOG.error("Json path '" + paths[i] + "' specified for the field '" + name + "' doesn't exist. " +
+                      "Dropping the error record: " + StructuredRecordStringConverter.toJsonString(input));
+          return;
         }
       } else {
         // We didn't find the field name in the mapping, we will not attempt to see if the field is present
@@ -206,6 +237,20 @@ public final class JSONParser extends Transform<StructuredRecord, StructuredReco
     emitter.emit(builder.build());
   }
 
+  /**
+   * @return the value of the path of the given output field in the document, or {@link SimpleJsonPath#NOT_FOUND}
+   */
+  private Object read(int field, Object document) {
+    if (simplePaths[field] != null) {
+      return simplePaths[field].read(document);
+    }
+    try {
+      return compiledPaths[field].read(document);
+    } catch (PathNotFoundException e) {
+      return SimpleJsonPath.NOT_FOUND;
+    }
+  }
+
   /**
    * JSONParser Plugin Config.
    */
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * JSON path that only consists of properties and array indices, such as {@code $.store.book[0].title} or
+ * {@code $['store']['book'][0]}. Such a path selects at most one value, which is read by walking the parsed document
+ * directly, without evaluating the path through JsonPath and without an exception when the value does not exist.
+ * Paths with any other syntax, such as wildcards, deep scans, filters, slices, negative indices or functions, are not
+ * simple and have to be evaluated by JsonPath.
+ */
+final class SimpleJsonPath {
+  // returned for values that do not exist, since null is a valid value
+  static final Object NOT_FOUND = new Object();
+
+  // property names, or Integer indices
+  private final Object[] steps;
+
+  private SimpleJsonPath(List<Object> steps) {
+    this.steps = steps.toArray();
+  }
+
+  /**
+   * @return the simple path for the given JSON path expression, or null if the expression is not a simple path
+   */
+  @Nullable
+  static SimpleJsonPath parse(String path) {
+    path = path.trim();
+    if (!path.startsWith("$")) {
+      return null;
+    }
+    List<Object> steps = new ArrayList<>();
+    int i = 1;
+    while (i < path.length()) {
+      char c = path.charAt(i);
+      if (c == '.') {
+        int end = i + 1;
+        while (end < path.length() && isPropertyChar(path.charAt(end))) {
+          end++;
+        }
+        if (end == i + 1) {
+          return null;
+        }
+        steps.add(path.substring(i + 1, end));
+        i = end;
+      } else if (c == '[') {
+        int close = path.indexOf(']', i);
+        if (close < 0) {
+          return null;
+        }
+        Object step = parseBracket(path.substring(i + 1, close).trim());
+        if (step == null) {
+          return null;
+        }
+        steps.add(step);
+        i = close + 1;
+      } else {
+        return null;
+      }
+    }
+    return new SimpleJsonPath(steps);
+  }
+
+  /**
+   * @return the value at this path in the given document, made of maps and lists, or {@link #NOT_FOUND}
+   */
+  Object read(Object document) {
+    Object current = document;
+    for (Object step : steps) {
+      if (step instanceof String) {
+        if (!(current instanceof Map) || !((Map<?, ?>) current).containsKey(step)) {
+          return NOT_FOUND;
+        }
+        current = ((Map<?, ?>) current).get(step);
+      } else {
+        int index = (Integer) step;
+        if (!(current instanceof List) || index >= ((List<?>) current).size()) {
+          return NOT_FOUND;
+        }
+        current = ((List<?>) current).get(index);
+      }
+    }
+    return current;
+  }
+
+  @Nullable
+  private static Object parseBracket(String content) {
+    if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+      && content.charAt(content.length() - 1) == content.charAt(0)) {
+      String name = content.substring(1, content.length() - 1);
+      for (int i = 0; i < name.length(); i++) {
+        char c = name.charAt(i);
+        if (c == '\'' || c == '"' || c == ',' || c == '\\') {
+          return null;
+        }
+      }
+      return name;
+    }
+    if (content.isEmpty() || content.length() > 9) {
+      return null;
+    }
+    for (int i = 0; i < content.length(); i++) {
+      if (!Character.isDigit(content.charAt(i))) {
+        return null;
+      }
+    }
+    return Integer.parseInt(content);
+  }
+
+  private static boolean isPropertyChar(char c) {
+    return c != '.' && c != '[' && c != ']' && c != '*' && c != '@' && c != '?' && c != '(' && c != ')'
+      && c != '\'' && c != '"' && c != ',' && c != '\\' && !Character.isWhitespace(c);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * XPath that is an absolute path of element names, optionally ending with an attribute, such as {@code /a/b/c} or
+ * {@code /a/b/@c}. Such a path can be matched while streaming through a document, by comparing it to the names of
+ * the open elements. Paths with any other syntax, such as predicates, wildcards, descendant steps, functions or
+ * namespace prefixes, are not simple and have to be evaluated on a DOM.
+ */
+final class SimpleXPath {
+  private final String[] elements;
+  @Nullable
+  private final String attribute;
+
+  private SimpleXPath(String[] elements, @Nullable String attribute) {
+    this.elements = elements;
+    this.attribute = attribute;
+  }
+
+  /**
+   * @return the simple path for the given XPath, or null if the XPath is not a simple path
+   */
+  @Nullable
+  static SimpleXPath parse(String xpath) {
+    xpath = xpath.trim();
+    if (!xpath.startsWith("/") || xpath.startsWith("//")) {
+      return null;
+    }
+    String[] steps = xpath.substring(1).split("/", -1);
+    String attribute = null;
+    int elementCount = steps.length;
+    if (steps[steps.length - 1].startsWith("@")) {
+      attribute = steps[steps.length - 1].substring(1);
+      elementCount--;
+      if (elementCount == 0 || !isName(attribute)) {
+        return null;
+      }
+    }
+    String[] elements = new String[elementCount];
+    for (int i = 0; i < elementCount; i++) {
+      if (!isName(steps[i])) {
+        return null;
+      }
+      elements[i] = steps[i];
+    }
+    return new SimpleXPath(elements, attribute);
+  }
+
+  /**
+   * @return the attribute selected by this path, or null if it selects elements
+   */
+  @Nullable
+  String getAttribute() {
+    return attribute;
+  }
+
+  /**
+   * @return the number of elements in this path, which is the depth of the selected elements
+   */
+  int getDepth() {
+    return elements.length;
+  }
+
+  /**
+   * @param openElements the names of the open elements, starting with the root element
+   * @param depth the number of open elements
+   * @return whether the innermost open element is selected by this path, or holds the selected attribute
+   */
+  boolean matches(String[] openElements, int depth) {
+    if (depth != elements.length) {
+      return false;
+    }
+    // the innermost elements are the most likely to differ
+    for (int i = depth - 1; i >= 0; i--) {
+      if (!elements[i].equals(openElements[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the name of the open element at the given depth, growing the array of open elements if it is full.
+   *
+   * @param openElements the names of the open elements, starting with the root element
+   * @param depth the number of open elements before this one
+   * @param name the name of the element
+   * @return the names of the open elements, which is a new array if it had to grow
+   */
+  static String[] push(String[] openElements, int depth, String name) {
+    if (depth == openElements.length) {
+      openElements = Arrays.copyOf(openElements, depth * 2);
+    }
+    openElements[depth] = name;
+    return openElements;
+  }
+
+  /**
+   * @return the name of the current element of the reader, including its prefix like on a DOM that is not namespace
+   * aware. Elements with a prefix never match, since simple paths have no prefixes.
+   */
+  static String getElementName(XMLStreamReader reader) {
+    String prefix = reader.getPrefix();
+    return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+  }
+
+  private static boolean isName(String name) {
+    if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
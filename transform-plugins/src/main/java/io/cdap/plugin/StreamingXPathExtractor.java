@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Extracts the values of {@link SimpleXPath simple paths} from a document in a single pass with a
+ * {@link XMLStreamReader}, without building a DOM. The values are the same as the text content of the first node
+ * that an XPath evaluation on a DOM would select: the value of an attribute, or the text of an element and all its
+ * descendants. Elements whose first or second child is an element cannot be extracted, since their value would be
+ * their markup. Once all the values are found, the rest of the document is skipped, unless the document is checked
+ * for paths that select more than one node.
+ */
+final class StreamingXPathExtractor {
+  private final XMLInputFactory inputFactory;
+  private final String[] fieldNames;
+  private final SimpleXPath[] paths;
+  private final boolean failOnArray;
+  private final boolean disallowDocType;
+
+  // per path, the number of selected nodes and the state of the element being read, reused for every document
+  private final int[] matches;
+  private final int[] readDepths;
+  private final int[] childNodes;
+  private final boolean[] lastChildIsText;
+  private final boolean[] hasChildElement;
+  private final StringBuilder[] texts;
+  private String[] openElements = new String[16];
+
+  /**
+   * @param inputFactory factory for the stream readers
+   * @param fieldNames the field of each path, for error messages
+   * @param paths the paths to extract
+   * @param failOnArray whether to fail if a path selects more than one node
+   * @param disallowDocType whether to fail on documents with a DOCTYPE declaration
+   */
+  StreamingXPathExtractor(XMLInputFactory inputFactory, List<String> fieldNames, List<SimpleXPath> paths,
+                          boolean failOnArray, boolean disallowDocType) {
+    this.inputFactory = inputFactory;
+    this.fieldNames = fieldNames.toArray(new String[0]);
+    this.paths = paths.toArray(new SimpleXPath[0]);
+    this.failOnArray = failOnArray;
+    this.disallowDocType = disallowDocType;
+    this.matches = new int[this.paths.length];
+    this.readDepths = new int[this.paths.length];
+    this.childNodes = new int[this.paths.length];
+    this.lastChildIsText = new boolean[this.paths.length];
+    this.hasChildElement = new boolean[this.paths.length];
+    this.texts = new StringBuilder[this.paths.length];
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = new StringBuilder();
+    }
+  }
+
+  /**
+   * @return the value of each path in the document, null for the paths that do not select any node
+   * @throws IllegalArgumentException if a path selects an element with child elements, or more than one node when
+   * failing on arrays
+   * @throws XMLStreamException if the document is malformed, or has a DOCTYPE declaration when they are disallowed
+   */
+  String[] extract(Reader document) throws XMLStreamException {
+    String[] values = new String[paths.length];
+    Arrays.fill(matches, 0);
+    Arrays.fill(readDepths, -1);
+    int pending = paths.length;
+    int reading = 0;
+    int depth = 0;
+
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(document);
+    try {
+      while ((failOnArray || pending > 0) && reader.hasNext()) {
+        int event = reader.next();
+        switch (event) {
+          case XMLStreamConstants.START_ELEMENT:
+            for (int i = 0; reading > 0 && i < paths.length; i++) {
+              if (readDepths[i] == depth) {
+                addChildNode(i, false);
+                hasChildElement[i] |= childNodes[i] <= 2;
+              }
+            }
+            openElements = SimpleXPath.push(openElements, depth++, SimpleXPath.getElementName(reader));
+            for (int i = 0; i < paths.length; i++) {
+              if (!paths[i].matches(openElements, depth)) {
+                continue;
+              }
+              if (paths[i].getAttribute() == null) {
+                if (select(i) && values[i] == null) {
+                  readDepths[i] = depth;
+                  childNodes[i] = 0;
+                  lastChildIsText[i] = false;
+                  hasChildElement[i] = false;
+                  texts[i].setLength(0);
+                  reading++;
+                }
+              } else {
+                String value = getAttribute(reader, paths[i].getAttribute());
+                if (value != null && select(i) && values[i] == null) {
+                  values[i] = value;
+                  pending--;
+                }
+              }
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            for (int i = 0; reading > 0 && i < paths.length; i++) {
+              if (readDepths[i] == depth) {
+                if (hasChildElement[i]) {
+                  throw new IllegalArgumentException(String.format(
+                    "The xpath returned node which contains child nodes. Cannot convert %s when streaming.",
+                    fieldNames[i]));
+                }
+                values[i] = texts[i].toString();
+                readDepths[i] = -1;
+                reading--;
+                pending--;
+              }
+            }
+            depth--;
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            for (int i = 0; reading > 0 && i < paths.length; i++) {
+              if (readDepths[i] >= 0) {
+                texts[i].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                if (readDepths[i] == depth && !lastChildIsText[i]) {
+                  addChildNode(i, true);
+                }
+              }
+            }
+            break;
+          case XMLStreamConstants.DTD:
+            if (disallowDocType) {
+              XMLInputFactories.rejectDocType(reader);
+            }
+            break;
+          case XMLStreamConstants.COMMENT:
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            for (int i = 0; reading > 0 && i < paths.length; i++) {
+              if (readDepths[i] == depth) {
+                addChildNode(i, false);
+              }
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return values;
+  }
+
+  /**
+   * Counts a node selected by the given path.
+   *
+   * @return whether it is the first selected node
+   */
+  private boolean select(int path) {
+    matches[path]++;
+    if (failOnArray && matches[path] > 1) {
+      throw new IllegalArgumentException("Field " + fieldNames[path] + " is an array. " +
+                                           "Cannot specify an XPath that is an array unless failOnArray is false.");
+    }
+    return matches[path] == 1;
+  }
+
+  private void addChildNode(int path, boolean text) {
+    // consecutive text events belong to the same text node
+    childNodes[path]++;
+    lastChildIsText[path] = text;
+  }
+
+  private static String getAttribute(XMLStreamReader reader, String name) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String prefix = reader.getAttributePrefix(i);
+      if ((prefix == null || prefix.isEmpty()) && name.equals(reader.getAttributeLocalName(i))) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Converts XML to JSON in a single pass with a {@link XMLStreamReader}, writing the JSON as the XML is read instead
+ * of building a {@link org.json.JSONObject} tree first. The JSON has the same structure and values as the one of
+ * {@link org.json.XML#toJSONObject(String)}: attributes and child elements become members, text becomes a
+ * {@code content} member, or the value itself if the element has nothing else, and repeated elements become arrays.
+ * Numbers, booleans and null in text and attributes are converted the same way. Members are written in document
+ * order.
+ *
+ * Documents whose conversion cannot be written in a single pass, such as elements that are repeated after a
+ * different sibling, or that the tree conversion reads differently, such as documents with CDATA sections, character
+ * references or a DTD, are not converted. Besides the JSON, only the state of the open elements is kept in memory,
+ * and the JSON buffer is reused for every document.
+ */
+final class StreamingXmlToJson {
+  private static final Object NULL = new Object();
+  private static final String CONTENT = "content";
+
+  private final XMLInputFactory inputFactory;
+  private final StringBuilder json = new StringBuilder();
+  private final StringBuilder text = new StringBuilder();
+  private Element[] elements = new Element[16];
+
+  StreamingXmlToJson() {
+    inputFactory = XMLInputFactory.newInstance();
+    // names keep their prefixes and namespace declarations are attributes, like in the tree conversion
+    inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  /**
+   * @return the JSON string of the given XML, or null if it cannot be converted in a single pass or is not valid XML
+   */
+  @Nullable
+  String convert(String xml) {
+    if (!isSupported(xml)) {
+      return null;
+    }
+    json.setLength(0);
+    text.setLength(0);
+    XMLStreamReader reader = null;
+    try {
+      reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+      int depth = 0;
+      // the document is an object that holds the root element
+      element(0).openObject();
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            Element parent = elements[depth];
+            flushText(parent);
+            parent.openObject();
+            parent.addMember(SimpleXPath.getElementName(reader));
+            Element element = element(++depth);
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              String prefix = reader.getAttributePrefix(i);
+              String name = prefix == null || prefix.isEmpty() ? reader.getAttributeLocalName(i)
+                : prefix + ":" + reader.getAttributeLocalName(i);
+              if (CONTENT.equals(name)) {
+                // would be mistaken for the text of the element
+                return null;
+              }
+              element.openObject();
+              element.addMember(name);
+              writeValue(stringToValue(reader.getAttributeValue(i)));
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            flushText(elements[depth]);
+            elements[depth--].close();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (depth > 0) {
+              text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.COMMENT:
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            // like markup, comments and processing instructions end a text
+            flushText(elements[depth]);
+            break;
+          default:
+            break;
+        }
+      }
+      elements[0].close();
+      return json.toString();
+    } catch (XMLStreamException | UnsupportedDocumentException e) {
+      return null;
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  /**
+   * @return whether the document has no CDATA sections, character references or document type declaration, which the
+   * tree conversion reads differently from an XML parser
+   */
+  private static boolean isSupported(String xml) {
+    int length = xml.length();
+    for (int i = 0; i < length - 1; i++) {
+      char c = xml.charAt(i);
+      char next = xml.charAt(i + 1);
+      if ((c == '&' && next == '#') || (c == '<' && next == '!' && !xml.startsWith("<!--", i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Element element(int depth) {
+    if (depth == elements.length) {
+      elements = Arrays.copyOf(elements, depth * 2);
+    }
+    if (elements[depth] == null) {
+      elements[depth] = new Element();
+    }
+    elements[depth].reset();
+    return elements[depth];
+  }
+
+  /**
+   * Adds the text read since the last markup to the given element. Like in the tree conversion, the text is trimmed
+   * and empty text is dropped.
+   */
+  private void flushText(Element element) {
+    if (text.length() == 0) {
+      return;
+    }
+    int start = 0;
+    while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    String trimmed = text.substring(start).trim();
+    text.setLength(0);
+    if (trimmed.isEmpty()) {
+      return;
+    }
+    Object value = stringToValue(trimmed);
+    if (element.object) {
+      element.addMember(CONTENT);
+      writeValue(value);
+    } else if (element.content == null) {
+      element.content = value;
+    } else {
+      // the text of the element would be an array nested in the array of the element
+      throw new UnsupportedDocumentException();
+    }
+  }
+
+  /**
+   * Converts a text to a number, boolean or null if it is one, the same way as {@link org.json.XML#stringToValue}.
+   */
+  private static Object stringToValue(String string) {
+    if ("true".equalsIgnoreCase(string)) {
+      return Boolean.TRUE;
+    }
+    if ("false".equalsIgnoreCase(string)) {
+      return Boolean.FALSE;
+    }
+    if ("null".equalsIgnoreCase(string)) {
+      return NULL;
+    }
+    if (string.isEmpty()) {
+      return string;
+    }
+    char initial = string.charAt(0);
+    if (initial != '-' && (initial < '0' || initial > '9')) {
+      return string;
+    }
+    try {
+      Long value = Long.valueOf(string);
+      return value.toString().equals(string) ? value : string;
+    } catch (NumberFormatException e) {
+      try {
+        Double value = Double.valueOf(string);
+        if (value.toString().equals(string)) {
+          return value;
+        }
+      } catch (NumberFormatException ignored) {
+        // not a number
+      }
+    }
+    return string;
+  }
+
+  private void writeValue(Object value) {
+    if (value instanceof String) {
+      quote((String) value);
+    } else if (value instanceof Double) {
+      Double number = (Double) value;
+      if (number.isInfinite() || number.isNaN()) {
+        // not valid in JSON, the tree conversion fails
+        throw new UnsupportedDocumentException();
+      }
+      // without trailing zeros, like org.json
+      String string = number.toString();
+      if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0) {
+        int end = string.length();
+        while (string.charAt(end - 1) == '0') {
+          end--;
+        }
+        if (string.charAt(end - 1) == '.') {
+          end--;
+        }
+        string = string.substring(0, end);
+      }
+      json.append(string);
+    } else if (value == NULL) {
+      json.append("null");
+    } else {
+      json.append(value);
+    }
+  }
+
+  /**
+   * Writes a JSON string, escaping the same characters as {@link org.json.JSONObject#quote(String)}.
+   */
+  private void quote(String string) {
+    json.append('"');
+    char previous;
+    char c = 0;
+    for (int i = 0; i < string.length(); i++) {
+      previous = c;
+      c = string.charAt(i);
+      switch (c) {
+        case '\\':
+        case '"':
+          json.append('\\').append(c);
+          break;
+        case '/':
+          if (previous == '<') {
+            json.append('\\');
+          }
+          json.append(c);
+          break;
+        case '\b':
+          json.append("\\b");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\f':
+          json.append("\\f");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        default:
+          if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+            String hex = Integer.toHexString(c);
+            json.append("\\u");
+            for (int j = hex.length(); j < 4; j++) {
+              json.append('0');
+            }
+            json.append(hex);
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+  }
+
+  private static void closeQuietly(@Nullable XMLStreamReader reader) {
+    if (reader == null) {
+      return;
+    }
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      // nothing was written by the reader
+    }
+  }
+
+  /**
+   * An open element, whose value is being written. The value is an object once the element has an attribute or a
+   * child element. Until then, the text of the element is kept, since it is the value if nothing else follows.
+   */
+  private final class Element {
+    private final Set<String> keys = new HashSet<>();
+    private boolean object;
+    private int members;
+    private String lastKey;
+    // where the value of the last member starts, to turn it into an array if the member is repeated
+    private int lastValueStart;
+    private boolean lastIsArray;
+    private Object content;
+
+    private void reset() {
+      keys.clear();
+      object = false;
+      members = 0;
+      lastKey = null;
+      lastIsArray = false;
+      content = null;
+    }
+
+    private void openObject() {
+      if (object) {
+        return;
+      }
+      object = true;
+      json.append('{');
+      if (content != null) {
+        addMember(CONTENT);
+        writeValue(content);
+        content = null;
+      }
+    }
+
+    /**
+     * Writes the key of a member, whose value is written next. A key that is the same as the previous one adds a
+     * value to the array of that member.
+     */
+    private void addMember(String key) {
+      if (key.equals(lastKey)) {
+        if (!lastIsArray) {
+          json.insert(lastValueStart, '[');
+          lastIsArray = true;
+        }
+        json.append(',');
+        return;
+      }
+      if (lastIsArray) {
+        json.append(']');
+        lastIsArray = false;
+      }
+      if (!keys.add(key)) {
+        // the values of the member are not next to each other, so they cannot be written as one array
+        throw new UnsupportedDocumentException();
+      }
+      if (members++ > 0) {
+        json.append(',');
+      }
+      quote(key);
+      json.append(':');
+      lastKey = key;
+      lastValueStart = json.length();
+    }
+
+    private void close() {
+      if (object) {
+        if (lastIsArray) {
+          json.append(']');
+        }
+        json.append('}');
+      } else if (content == null) {
+        json.append("\"\"");
+      } else {
+        writeValue(content);
+      }
+    }
+  }
+
+  /**
+   * Thrown for documents that cannot be converted in a single pass.
+   */
+  private static final class UnsupportedDocumentException extends RuntimeException {
+  }
+}
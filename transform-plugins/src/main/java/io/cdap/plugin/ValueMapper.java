@@ -24,6 +24,7 @@ import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.api.plugin.PluginConfig;
+import io.cdap.cdap.etl.api.CacheConfig;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.Lookup;
@@ -35,6 +36,7 @@ import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.api.lineage.field.FieldTransformOperation;
 import io.cdap.plugin.common.TransformLineageRecorderUtils;
+import io.cdap.plugin.common.script.BatchingLookup;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -42,6 +44,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Transforms records using custom mapping provided by the config.
@@ -53,6 +56,8 @@ import java.util.stream.Collectors;
 public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
   private final Config config;
   private final Map<Schema, Schema> schemaCache = new HashMap<>();
+  private Schema lastInputSchema;
+  private Schema lastOutputSchema;
   private final Map<String, ValueMapping> mappingValues = new HashMap<>();
   private Map<String, String> defaultsMapping = new HashMap<>();
   private Map<String, Lookup<String>> lookupTableCache = new HashMap<String, Lookup<String>>();
@@ -68,6 +73,7 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
   public static class Config extends PluginConfig {
     public static final String DEFAULTS = "defaults";
     public static final String MAPPING = "mapping";
+    public static final String CACHE_SIZE = "cacheSize";
 
     @Name("mapping")
     @Description("Specify the source and target field mapping and lookup dataset name." +
@@ -83,9 +89,27 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
             "For example: lang_code:English,country_code:Britain")
     private final String defaults;
 
+    @Name(CACHE_SIZE)
+    @Description("Maximum number of values of each mapping table to keep in memory. Values that are absent from " +
+            "the mapping table are kept as well. Each value is looked up on its own, so values are only cached and " +
+            "never read from the mapping table in batches. Once a value is in memory, it is mapped without " +
+            "reading the mapping table again, so changes to the mapping table during a run may not be seen. " +
+            "Defaults to 0, which reads the mapping table for every value.")
+    @Nullable
+    private final Integer cacheSize;
+
     public Config(String mapping, String defaults) {
+      this(mapping, defaults, null);
+    }
+
+    public Config(String mapping, String defaults, @Nullable Integer cacheSize) {
       this.mapping = mapping;
       this.defaults = defaults;
+      this.cacheSize = cacheSize;
+    }
+
+    public int getCacheSize() {
+      return cacheSize == null ? 0 : cacheSize;
     }
   }
 
@@ -154,6 +178,10 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
         mappingValues.put(mappingValueArray[0], valueMapping);
       }
     }
+    if (config.getCacheSize() < 0) {
+      collector.addFailure(String.format("Invalid cache size: %d.", config.getCacheSize()),
+                           "Cache size must not be negative.").withConfigProperty(Config.CACHE_SIZE);
+    }
     collector.getOrThrowException();
   }
 
@@ -212,6 +240,13 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
       if (!lookupTableCache.containsKey(lookupTableName)) {
         LookupTableConfig tableConfig = new LookupTableConfig(LookupTableConfig.TableType.DATASET);
         Lookup<String> lookupTable = context.provide(lookupTableName, tableConfig.getDatasetProperties());
+        if (config.getCacheSize() > 0) {
+          // values are kept for the whole run, until the cache is full. Every lookup is a single key, so the
+          // wrapper only caches and never batches.
+          lookupTable = new BatchingLookup<>(lookupTable, new CacheConfig(Long.MAX_VALUE, config.getCacheSize()),
+                                             BatchingLookup.DEFAULT_BATCH_SIZE, context.getMetrics(),
+                                             String.format("lookup.%s.", lookupTableName));
+        }
         lookupTableCache.put(lookupTableName, lookupTable);
       }
     }
@@ -219,8 +254,11 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
 
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord.Builder builder = StructuredRecord.builder(
-        getOutputSchema(input.getSchema(), getContext().getFailureCollector()));
+    if (input.getSchema() != lastInputSchema) {
+      lastOutputSchema = getOutputSchema(input.getSchema(), getContext().getFailureCollector());
+      lastInputSchema = input.getSchema();
+    }
+    StructuredRecord.Builder builder = StructuredRecord.builder(lastOutputSchema);
     for (Schema.Field sourceField : input.getSchema().getFields()) {
       String sourceFieldName = sourceField.getName();
       if (mappingValues.containsKey(sourceFieldName)) {
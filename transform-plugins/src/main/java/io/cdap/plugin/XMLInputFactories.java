@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Creates the {@link XMLInputFactory} used by the streaming modes of the XML parsers, configured from the same
+ * DTD and external entity settings as the DOM parsers so that both modes read the same external resources.
+ */
+final class XMLInputFactories {
+  private static final String IGNORE_EXTERNAL_DTD = "http://java.sun.com/xml/stream/properties/ignore-external-dtd";
+
+  private XMLInputFactories() {
+  }
+
+  /**
+   * StAX has a single switch for external entities, so they are only read if both external general and external
+   * parameter entities are enabled. The external DTD subset is read regardless of that switch, so access to it is
+   * denied unless it is to be loaded, and it is skipped when the reader supports skipping it.
+   *
+   * @param disallowDocType whether to disallow DOCTYPE declarations
+   * @param externalGeneralEntities whether to read external general entities
+   * @param externalParameterEntities whether to read external parameter entities
+   * @param loadExternalDTD whether to load the external DTD subset
+   * @return the input factory
+   */
+  static XMLInputFactory create(boolean disallowDocType, boolean externalGeneralEntities,
+                                boolean externalParameterEntities, boolean loadExternalDTD) {
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, !disallowDocType);
+    boolean externalEntities = externalGeneralEntities && externalParameterEntities;
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, externalEntities);
+    if (loadExternalDTD) {
+      inputFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "all");
+      return inputFactory;
+    }
+    boolean skipsExternalDTD = setIfSupported(inputFactory, IGNORE_EXTERNAL_DTD, true);
+    // external entities are resolved through the same access check as the external DTD
+    inputFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, externalEntities && skipsExternalDTD ? "all" : "");
+    return inputFactory;
+  }
+
+  /**
+   * Rejects the DOCTYPE declaration the reader is at, the way the DOM parsers do when DOCTYPE declarations are
+   * disallowed. The reader still reports the declaration when DTDs are not supported, it only does not process it.
+   *
+   * @param reader the reader, at a {@link javax.xml.stream.XMLStreamConstants#DTD} event
+   * @throws XMLStreamException always
+   */
+  static void rejectDocType(XMLStreamReader reader) throws XMLStreamException {
+    throw new XMLStreamException("DOCTYPE is disallowed when disallowDocTypeDTD is set to true.",
+                                 reader.getLocation());
+  }
+
+  private static boolean setIfSupported(XMLInputFactory inputFactory, String name, Object value) {
+    try {
+      inputFactory.setProperty(name, value);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
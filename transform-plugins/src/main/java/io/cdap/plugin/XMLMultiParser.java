@@ -49,6 +49,10 @@ import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -65,12 +69,19 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
 
   private static final String FIELD = "field";
   private static final String XPATH = "xPath";
+  private static final String EXTRACTION_MODE = "extractionMode";
+  private static final String DOM_MODE = "dom";
+  private static final String STREAMING_MODE = "streaming";
 
   private final Config config;
   private final DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
   private Schema schema;
   private XPathExpression xPathExpression;
   private Set<String> fieldNames;
+  // only set in streaming mode
+  private XMLInputFactory inputFactory;
+  private SimpleXPath streamingPath;
+  private String[] openElements = new String[16];
 
   public XMLMultiParser(Config config) {
     this.config = config;
@@ -98,8 +109,19 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     super.initialize(context);
     FailureCollector collector = getContext().getFailureCollector();
     schema = config.getSchema(collector);
-    xPathExpression = config.getXPathExpression(collector);
     fieldNames = new HashSet<>();
+    for (Schema.Field field : schema.getFields()) {
+      fieldNames.add(field.getName());
+    }
+    if (config.isStreaming(collector)) {
+      streamingPath = config.getStreamingPath(collector);
+      inputFactory = XMLInputFactories.create(config.shouldDisallowDocTypeDTD(),
+                                              config.shouldEnableExternalGeneralEntities(),
+                                              config.shouldEnableExternalParameterEntities(),
+                                              config.shouldLoadExternalDTD());
+      return;
+    }
+    xPathExpression = config.getXPathExpression(collector);
     builderFactory.setFeature("http://xml.org/sax/features/external-general-entities",
                               config.shouldEnableExternalGeneralEntities());
     builderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities",
@@ -110,9 +132,6 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
                               config.shouldDisallowDocTypeDTD());
     builderFactory.setXIncludeAware(false);
     builderFactory.setExpandEntityReferences(false);
-    for (Schema.Field field : schema.getFields()) {
-      fieldNames.add(field.getName());
-    }
   }
 
   @Override
@@ -122,6 +141,10 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     if (xmlStr == null) {
       return;
     }
+    if (streamingPath != null) {
+      transformStreaming(input, xmlStr, emitter);
+      return;
+    }
 
     try (Reader reader = new StringReader((String) input.get(config.field))) {
       InputSource source = new InputSource(reader);
@@ -175,6 +198,99 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     }
   }
 
+  /**
+   * Emits a record for every element selected by the streaming path, as soon as the end of the element is read.
+   * Only the record that is being read is kept in memory. Records that were emitted before a parse error are kept.
+   */
+  private void transformStreaming(StructuredRecord input, String xml, Emitter<StructuredRecord> emitter) {
+    int recordDepth = streamingPath.getDepth();
+    int depth = 0;
+    StructuredRecord.Builder builder = null;
+    Exception recordFailure = null;
+    String fieldName = null;
+    StringBuilder fieldText = new StringBuilder();
+    XMLStreamReader reader = null;
+    try {
+      reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            String name = SimpleXPath.getElementName(reader);
+            if (builder != null && depth == recordDepth && fieldNames.contains(name)) {
+              fieldName = name;
+              fieldText.setLength(0);
+            }
+            openElements = SimpleXPath.push(openElements, depth++, name);
+            if (streamingPath.matches(openElements, depth)) {
+              builder = StructuredRecord.builder(schema);
+              recordFailure = null;
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (fieldName != null && depth == recordDepth + 1) {
+              try {
+                builder.convertAndSet(fieldName, fieldText.toString());
+              } catch (Exception e) {
+                recordFailure = e;
+              }
+              fieldName = null;
+            } else if (builder != null && depth == recordDepth) {
+              emitRecord(input, builder, recordFailure, emitter);
+              builder = null;
+            }
+            depth--;
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (fieldName != null) {
+              fieldText.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.DTD:
+            if (config.shouldDisallowDocTypeDTD()) {
+              XMLInputFactories.rejectDocType(reader);
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      LOG.error("Unable to parse the xml document. The rest of this record will be dropped.", e);
+      emitter.emitError(new InvalidEntry<>(31, "Unable to parse the xml document. The rest of this record will be " +
+        "dropped.", input));
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  private void emitRecord(StructuredRecord input, StructuredRecord.Builder builder, @Nullable Exception failure,
+                          Emitter<StructuredRecord> emitter) {
+    if (failure == null) {
+      try {
+        emitter.emit(builder.build());
+        return;
+      } catch (Exception e) {
+        failure = e;
+      }
+    }
+    LOG.error("Unable to create a record from the xpath element. This record will be dropped.", failure);
+    emitter.emitError(new InvalidEntry<>(31, "Unable to create a record from the xpath element. This record " +
+      "will be dropped.", input));
+  }
+
+  private static void closeQuietly(@Nullable XMLStreamReader reader) {
+    if (reader == null) {
+      return;
+    }
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      LOG.warn("Unable to close the xml stream reader.", e);
+    }
+  }
+
   /**
    * Configuration for the XMLParser transform..
    */
@@ -219,12 +335,26 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
             " 'http://apache.org/xml/features/disallow-doctype-decl'")
     private final Boolean disallowDocTypeDTD;
 
+    @Nullable
+    @Description("How the XML document is read. In 'dom' mode, the default, the document is parsed into memory " +
+      "before the xpath is evaluated. In 'streaming' mode, records are emitted as the document is read, which keeps " +
+      "only one record in memory, but only supports an xpath that is an absolute path of element names, such as " +
+      "/catalog/book.")
+    private final String extractionMode;
+
     public Config(String field, String encoding, String xPath, String schema) {
       this(field, encoding, xPath, schema, false, false, false, false);
     }
 
     public Config(String field, String encoding, String xPath, String schema, Boolean enableExternalGeneralEntities,
                   Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD) {
+      this(field, encoding, xPath, schema, enableExternalGeneralEntities, enableExternalParameterEntities,
+           loadExternalDTD, disallowDocTypeDTD, null);
+    }
+
+    public Config(String field, String encoding, String xPath, String schema, Boolean enableExternalGeneralEntities,
+                  Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD,
+                  @Nullable String extractionMode) {
       this.field = field;
       this.encoding = encoding;
       this.xPath = xPath;
@@ -233,6 +363,7 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       this.enableExternalParameterEntities = enableExternalParameterEntities;
       this.loadExternalDTD = loadExternalDTD;
       this.disallowDocTypeDTD = disallowDocTypeDTD;
+      this.extractionMode = extractionMode;
     }
 
     public void validate(@Nullable Schema inputSchema, FailureCollector collector) {
@@ -245,7 +376,11 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       }
 
       if (!containsMacro(XPATH)) {
-        getXPathExpression(collector);
+        if (isStreaming(collector)) {
+          getStreamingPath(collector);
+        } else {
+          getXPathExpression(collector);
+        }
       }
 
       for (Schema.Field field : getSchema(collector).getFields()) {
@@ -270,6 +405,30 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       }
     }
 
+    public boolean isStreaming(FailureCollector collector) {
+      if (extractionMode == null || DOM_MODE.equalsIgnoreCase(extractionMode)) {
+        return false;
+      }
+      if (!STREAMING_MODE.equalsIgnoreCase(extractionMode)) {
+        collector.addFailure(String.format("Invalid extraction mode '%s'.", extractionMode),
+                             String.format("Use '%s' or '%s'.", DOM_MODE, STREAMING_MODE))
+          .withConfigProperty(EXTRACTION_MODE);
+        throw collector.getOrThrowException();
+      }
+      return true;
+    }
+
+    SimpleXPath getStreamingPath(FailureCollector collector) {
+      SimpleXPath path = SimpleXPath.parse(xPath);
+      if (path == null || path.getAttribute() != null) {
+        collector.addFailure(String.format("XPath '%s' cannot be evaluated when streaming.", xPath),
+                             "Use an absolute path of element names, such as /catalog/book.")
+          .withConfigProperty(XPATH);
+        throw collector.getOrThrowException();
+      }
+      return path;
+    }
+
     public boolean shouldEnableExternalGeneralEntities() {
       return enableExternalGeneralEntities == null ? false : enableExternalGeneralEntities;
     }
@@ -49,6 +49,9 @@ import java.util.Map;
 import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -57,6 +60,8 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 /**
@@ -73,6 +78,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   private final Config config;
   private Schema outSchema;
   private Map<String, String> xPathMapping = new HashMap<>();
+  // Created in initialize and reused for every record. Only used by the thread that runs this transform.
+  private DocumentBuilder documentBuilder;
+  private XPathExpression[] xPathExpressions;
+  private Transformer transformer;
+  private StreamingXPathExtractor streamingExtractor;
 
   // Required only for testing.
   public XMLParser(Config config) {
@@ -113,14 +123,62 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
     super.initialize(context);
     FailureCollector collector = getContext().getFailureCollector();
     outSchema = config.getOutputSchema(collector);
-    xPathMapping = getXPathMapping(collector);
+    validateXpathAndSchema(collector);
     collector.getOrThrowException();
+
+    List<Schema.Field> fields = outSchema.getFields();
+    if (config.isStreaming()) {
+      List<String> fieldNames = new ArrayList<>();
+      List<SimpleXPath> paths = new ArrayList<>();
+      for (Schema.Field field : fields) {
+        fieldNames.add(field.getName());
+        paths.add(SimpleXPath.parse(xPathMapping.get(field.getName())));
+      }
+      streamingExtractor = new StreamingXPathExtractor(createInputFactory(), fieldNames, paths,
+                                                       Boolean.TRUE.equals(config.failOnArray),
+                                                       isEnabled(config.disallowDocTypeDTD));
+      return;
+    }
+
+    documentBuilder = createDocumentBuilderFactory().newDocumentBuilder();
+    XPath xpath = XPathFactory.newInstance().newXPath();
+    xPathExpressions = new XPathExpression[fields.size()];
+    for (int i = 0; i < fields.size(); i++) {
+      xPathExpressions[i] = xpath.compile(xPathMapping.get(fields.get(i).getName()));
+    }
+  }
+
+  private DocumentBuilderFactory createDocumentBuilderFactory() throws ParserConfigurationException {
+    DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
+    builderFactory.setFeature("http://xml.org/sax/features/external-general-entities",
+                              isEnabled(config.enableExternalGeneralEntities));
+    builderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities",
+                              isEnabled(config.enableExternalParameterEntities));
+    builderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
+                              isEnabled(config.loadExternalDTD));
+    builderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl",
+                              isEnabled(config.disallowDocTypeDTD));
+    builderFactory.setXIncludeAware(false);
+    builderFactory.setExpandEntityReferences(false);
+    return builderFactory;
+  }
+
+  private XMLInputFactory createInputFactory() {
+    return XMLInputFactories.create(isEnabled(config.disallowDocTypeDTD),
+                                    isEnabled(config.enableExternalGeneralEntities),
+                                    isEnabled(config.enableExternalParameterEntities),
+                                    isEnabled(config.loadExternalDTD));
+  }
+
+  private static boolean isEnabled(@Nullable Boolean feature) {
+    return Boolean.TRUE.equals(feature);
   }
 
   /**
    * Valid if xpathMappings and schema contain the same field names.
    */
   private void validateXpathAndSchema(FailureCollector collector) {
+    validateExtractionMode(collector);
     xPathMapping = getXPathMapping(collector);
     List<Schema.Field> outFields = outSchema.getFields();
     // Checks if all the fields in the XPath mapping are present in the output schema.
@@ -141,8 +199,19 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
     }
   }
 
+  private void validateExtractionMode(FailureCollector collector) {
+    if (config.extractionMode != null && !Config.DOM_MODE.equalsIgnoreCase(config.extractionMode)
+      && !Config.STREAMING_MODE.equalsIgnoreCase(config.extractionMode)) {
+      collector.addFailure(String.format("Invalid extraction mode '%s'.", config.extractionMode),
+                           String.format("Use '%s' or '%s'.", Config.DOM_MODE, Config.STREAMING_MODE))
+        .withConfigProperty(Config.EXTRACTION_MODE);
+    }
+  }
+
   private Map<String, String> getXPathMapping(FailureCollector collector) {
     Map<String, String> map = new HashMap<>();
+    boolean streaming = config.isStreaming();
+    XPath compiler = XPathFactory.newInstance().newXPath();
     String[] xpaths = config.xPathFieldMapping.split(",");
     for (String xpath : xpaths) {
       String[] xpathmap = xpath.split(":"); //name:xpath[,name:xpath]*
@@ -160,7 +229,18 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
         try {
           String fieldName = URLDecoder.decode(xpathmap[0].trim(), "UTF-8");
           String path = URLDecoder.decode(xpathmap[1].trim(), "UTF-8");
+          if (streaming && SimpleXPath.parse(path) == null) {
+            collector.addFailure(
+              String.format("XPath '%s' for field '%s' cannot be evaluated when streaming.", path, fieldName),
+              "Use an absolute path of element names, optionally ending with an attribute, such as /a/b or /a/b/@c.")
+              .withConfigElement(XPATH_MAPPINGS, xpath);
+          } else if (!streaming) {
+            compiler.compile(path);
+          }
           map.put(fieldName, path);
+        } catch (XPathExpressionException e) {
+          collector.addFailure(String.format("Invalid XPath '%s': %s", xpath, e.getMessage()), null)
+            .withConfigElement(XPATH_MAPPINGS, xpath);
         } catch (UnsupportedEncodingException e) {
           // This should never happen
           collector.addFailure(String.format("Unsupported encoding while decoding xpath '%s'.", xpath), null)
@@ -174,30 +254,21 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
     try {
+      if (streamingExtractor != null) {
+        emitter.emit(extractStreaming((String) input.get(config.inputField)));
+        return;
+      }
       InputSource source = new InputSource(new StringReader((String) input.get(config.inputField)));
       source.setEncoding(config.encoding);
-      DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-      builderFactory.setFeature("http://xml.org/sax/features/external-general-entities",
-              config.enableExternalGeneralEntities);
-      builderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities",
-              config.enableExternalParameterEntities);
-      builderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
-              config.loadExternalDTD);
-      builderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl",
-              config.disallowDocTypeDTD);
-      builderFactory.setXIncludeAware(false);
-      builderFactory.setExpandEntityReferences(false);
-      DocumentBuilder documentBuilder = builderFactory.newDocumentBuilder();
       Document document = documentBuilder.parse(source);
-      XPathFactory xpathFactory = XPathFactory.newInstance();
-      XPath xpath = xpathFactory.newXPath();
       StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
-      for (Schema.Field field : outSchema.getFields()) {
+      List<Schema.Field> fields = outSchema.getFields();
+      for (int i = 0; i < fields.size(); i++) {
+        Schema.Field field = fields.get(i);
         String fieldName = field.getName();
         //To evaluate a node, the type(Nodelist or Node) should be known before hand.
         //Since, the type is not specified from user inputs, taking everything as NodeList and then evaluating.
-        NodeList nodeList = (NodeList) xpath.compile(xPathMapping.get(fieldName)).evaluate(document,
-                                                                                           XPathConstants.NODESET);
+        NodeList nodeList = (NodeList) xPathExpressions[i].evaluate(document, XPathConstants.NODESET);
         if (config.failOnArray && nodeList.getLength() > 1) {
           throw new IllegalArgumentException("Field " + fieldName + " is an array. " +
                                                "Cannot specify an XPath that is an array unless failOnArray is false.");
@@ -227,6 +298,20 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
     }
   }
 
+  private StructuredRecord extractStreaming(String xml) throws XMLStreamException {
+    String[] values = streamingExtractor.extract(new StringReader(xml));
+    StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
+    List<Schema.Field> fields = outSchema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      if (values[i] == null) {
+        builder.set(fields.get(i).getName(), null);
+      } else {
+        builder.convertAndSet(fields.get(i).getName(), values[i]);
+      }
+    }
+    return builder.build();
+  }
+
   /**
    * Get the node value to be parsed into the required format by parseValues().
    *
@@ -264,9 +349,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   private String nodeToString(Node node) {
     StringWriter stringWriter = new StringWriter();
     try {
-      Transformer transformer = TransformerFactory.newInstance().newTransformer();
-      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-      transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      if (transformer == null) {
+        transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      }
       transformer.transform(new DOMSource(node), new StreamResult(stringWriter));
     } catch (TransformerException e) {
       throw new IllegalArgumentException("Cannot convert node to string. Transformer exception ", e);
@@ -280,6 +367,9 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
   public static class Config extends PluginConfig {
     public static final String FIELD_TYPE_MAPPING = "fieldTypeMapping";
     public static final String INPUT = "input";
+    public static final String EXTRACTION_MODE = "extractionMode";
+    public static final String DOM_MODE = "dom";
+    public static final String STREAMING_MODE = "streaming";
 
     @Name("input")
     @Description("The field in the input record that is the source of the XML event or record.")
@@ -333,6 +423,13 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
             " 'http://apache.org/xml/features/disallow-doctype-decl'")
     private final Boolean disallowDocTypeDTD;
 
+    @Nullable
+    @Description("How the XPaths are evaluated. In 'dom' mode, the default, the XML is parsed into a document that " +
+      "the XPaths are evaluated on. In 'streaming' mode, the values are read in a single pass over the XML without " +
+      "building a document, which only supports absolute paths of element names, optionally ending with an " +
+      "attribute, such as /a/b or /a/b/@c.")
+    private final String extractionMode;
+
     public Config() {
       this("", "", "", "", "", false, false, false, false);
     }
@@ -345,6 +442,15 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
                   String processOnError,
                   Boolean enableExternalGeneralEntities,
                   Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD) {
+      this(inputField, encoding, xPathFieldMapping, fieldTypeMapping, processOnError, enableExternalGeneralEntities,
+           enableExternalParameterEntities, loadExternalDTD, disallowDocTypeDTD, null);
+    }
+
+    public Config(String inputField, String encoding, String xPathFieldMapping, String fieldTypeMapping,
+                  String processOnError,
+                  Boolean enableExternalGeneralEntities,
+                  Boolean enableExternalParameterEntities, Boolean loadExternalDTD, Boolean disallowDocTypeDTD,
+                  @Nullable String extractionMode) {
       this.inputField = inputField;
       this.encoding = encoding;
       this.xPathFieldMapping = xPathFieldMapping;
@@ -355,6 +461,11 @@ public class XMLParser extends Transform<StructuredRecord, StructuredRecord> {
       this.enableExternalParameterEntities = enableExternalParameterEntities;
       this.loadExternalDTD = loadExternalDTD;
       this.disallowDocTypeDTD = disallowDocTypeDTD;
+      this.extractionMode = extractionMode;
+    }
+
+    private boolean isStreaming() {
+      return STREAMING_MODE.equalsIgnoreCase(extractionMode);
     }
 
     /**
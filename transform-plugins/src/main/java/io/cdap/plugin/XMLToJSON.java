@@ -32,13 +32,13 @@ import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.plugin.common.TransformLineageRecorderUtils;
 import org.json.JSONException;
-import org.json.JSONObject;
 import org.json.XML;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * A transform that parses an XML String field into a stringified JSON Object.
@@ -48,6 +48,9 @@ import java.util.stream.Collectors;
 @Description("Converts an XML string to a JSON string")
 public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecord> {
   private static final String INPUT_FIELD = "inputField";
+  private static final String CONVERSION_MODE = "conversionMode";
+  private static final String TREE_MODE = "tree";
+  private static final String STREAMING_MODE = "streaming";
 
   private final Config config;
   public static final Schema DEFAULT_SCHEMA = Schema.recordOf(
@@ -55,7 +58,7 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
     Schema.Field.of("json_str", Schema.of(Schema.Type.STRING))
   );
   private Schema outputSchema;
-
+  private StreamingXmlToJson streamingConverter;
 
   // Used only for testing.
   public XMLToJSON(Config config) {
@@ -92,6 +95,9 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
   public void initialize(TransformContext context) throws Exception {
     super.initialize(context);
     generateOutputSchema();
+    if (config.isStreaming()) {
+      streamingConverter = new StreamingXmlToJson();
+    }
   }
 
   private void generateOutputSchema() {
@@ -130,16 +136,25 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
           .withConfigProperty(INPUT_FIELD).withInputSchemaField(config.inputField);
       }
     }
+    if (config.conversionMode != null && !TREE_MODE.equalsIgnoreCase(config.conversionMode)
+      && !STREAMING_MODE.equalsIgnoreCase(config.conversionMode)) {
+      collector.addFailure(String.format("Invalid conversion mode '%s'.", config.conversionMode),
+                           String.format("Use '%s' or '%s'.", TREE_MODE, STREAMING_MODE))
+        .withConfigProperty(CONVERSION_MODE);
+    }
   }
   
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
-    JSONObject jsonBody;
-    try {
-      jsonBody = XML.toJSONObject((String) input.get(config.inputField));
-    } catch (JSONException e) {
-      throw new Exception(String.format("Failed to convert XML to JSON. XML In: '%s'",
-                                        (String) input.get(config.inputField)), e);
+    String xml = input.get(config.inputField);
+    // documents that cannot be converted in a single pass are converted through the tree
+    String jsonBody = streamingConverter == null ? null : streamingConverter.convert(xml);
+    if (jsonBody == null) {
+      try {
+        jsonBody = XML.toJSONObject(xml).toString();
+      } catch (JSONException e) {
+        throw new Exception(String.format("Failed to convert XML to JSON. XML In: '%s'", xml), e);
+      }
     }
     StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
 
@@ -158,7 +173,7 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
       }
     }
     // Finally add the transformed JSON string
-    builder.set(outputSchema.getField(config.outputField).getName(), jsonBody.toString());
+    builder.set(outputSchema.getField(config.outputField).getName(), jsonBody);
     emitter.emit(builder.build());
   }
 
@@ -181,6 +196,13 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
     @Description("Output schema")
     private String schema;
 
+    @Name(CONVERSION_MODE)
+    @Description("How the XML string is converted. In 'tree' mode, the XML is parsed into a JSON object that is then " +
+                 "written as a string. In 'streaming' mode, the JSON string is written while the XML is read, and " +
+                 "members are written in document order. Defaults to 'tree'.")
+    @Nullable
+    private String conversionMode;
+
     public Config(String inputField, String outputField) {
       this.inputField = inputField;
       this.outputField = outputField;
@@ -188,9 +210,18 @@ public final class XMLToJSON extends Transform<StructuredRecord, StructuredRecor
     }
 
     public Config(String inputField, String outputField, String schema) {
+      this(inputField, outputField, schema, null);
+    }
+
+    public Config(String inputField, String outputField, String schema, @Nullable String conversionMode) {
       this.inputField = inputField;
       this.outputField = outputField;
       this.schema = schema;
+      this.conversionMode = conversionMode;
+    }
+
+    private boolean isStreaming() {
+      return STREAMING_MODE.equalsIgnoreCase(conversionMode);
     }
   }
 }
@@ -124,6 +124,38 @@ public class CSVParserTest {
     Assert.assertEquals(expected, emitter.getEmitted().get(0));
   }
 
+  @Test
+  public void testMultipleRecords() throws Exception {
+    Schema schema = Schema.recordOf("multiple",
+                                    Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("offset", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+                                    Schema.Field.of("b", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+    Schema inputSchema = Schema.recordOf("input",
+                                         Schema.Field.of("body", Schema.of(Schema.Type.STRING)),
+                                         Schema.Field.of("offset", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    CSVParser.Config config = new CSVParser.Config("DEFAULT", null, "body", schema.toString());
+    Transform<StructuredRecord, StructuredRecord> transform = new CSVParser(config);
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(inputSchema).set("body", "1,2.5\n3,\n4,5").set("offset", 7L).build(),
+                        emitter);
+    Assert.assertEquals(3, emitter.getEmitted().size());
+    Assert.assertEquals(StructuredRecord.builder(schema).set("a", 1L).set("offset", 7L).set("b", 2.5d).build(),
+                        emitter.getEmitted().get(0));
+    Assert.assertEquals(StructuredRecord.builder(schema).set("a", 3L).set("offset", 7L).set("b", null).build(),
+                        emitter.getEmitted().get(1));
+    Assert.assertEquals(StructuredRecord.builder(schema).set("a", 4L).set("offset", 7L).set("b", 5d).build(),
+                        emitter.getEmitted().get(2));
+
+    // a null input field is parsed from the CSV record instead
+    emitter.clear();
+    transform.transform(StructuredRecord.builder(inputSchema).set("body", "1,2,3.5").set("offset", null).build(),
+                        emitter);
+    Assert.assertEquals(StructuredRecord.builder(schema).set("a", 1L).set("offset", 2L).set("b", 3.5d).build(),
+                        emitter.getEmitted().get(0));
+  }
+
   @Test
   public void testNullFormat() throws Exception {
     CSVParser.Config config = new CSVParser.Config(null, null, "body", OUTPUT1.toString());
@@ -416,4 +448,19 @@ public class CSVParserTest {
     Assert.assertEquals("offset", 1, invalidEntry.getInvalidRecord().<Integer>get("offset").intValue());
     Assert.assertEquals("body", "0,\"020\"1,\"BS:12345  ORDER:111\"4", invalidEntry.getInvalidRecord().get("body"));
   }
+
+  @Test
+  public void testMalformedRecordAfterValidRecords() throws Exception {
+    CSVParser.Config config = new CSVParser.Config("DEFAULT", null, "body", OUTPUT5.toString());
+    Transform<StructuredRecord, StructuredRecord> transform = new CSVParser(config);
+    transform.initialize(new MockTransformContext());
+    String body = "1,\"020\",\"BS:12345\"\n0,\"020\"1,\"BS:12345  ORDER:111\"4";
+    StructuredRecord inputRecord = StructuredRecord.builder(INPUT2).set("offset", 1).set("body", body).build();
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(inputRecord, emitter);
+    // records parsed before the malformed one are not emitted either
+    Assert.assertEquals(0, emitter.getEmitted().size());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(body, emitter.getErrors().get(0).getInvalidRecord().get("body"));
+  }
 }
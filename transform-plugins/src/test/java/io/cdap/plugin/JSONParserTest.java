@@ -30,6 +30,8 @@ import io.cdap.cdap.etl.mock.transform.MockTransformContext;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 /**
  * Tests {@link JSONParser}
  */
@@ -270,4 +272,38 @@ public class JSONParserTest {
     Assert.assertEquals(19.95d, emitter.getEmitted().get(0).get("bicycle_price"), 0.0001d);
     Assert.assertEquals(null, emitter.getEmitted().get(0).get("window"));
   }
+
+  @Test
+  public void testSimpleAndComplexJsonPaths() throws Exception {
+    Schema output = Schema.recordOf(
+      "output",
+      Schema.Field.of("first_title", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("last_isbn", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("authors", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("missing_title", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    final String[] jsonPaths = {
+      "first_title:$.store.book[0].title",
+      "last_isbn:$['store']['book'][3]['isbn']",
+      "authors:$.store.book[*].author",
+      "missing_title:$.store.book[4].title"
+    };
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    JSONParser.Config config = new JSONParser.Config("body", Joiner.on(",").join(jsonPaths), output.toString());
+    Transform<StructuredRecord, StructuredRecord> transform = new JSONParser(config);
+    transform.initialize(new MockTransformContext());
+    transform.transform(StructuredRecord.builder(INPUT1).set("body", json).build(), emitter);
+    transform.transform(StructuredRecord.builder(INPUT1).set("body", "{\"store\": {\"book\": []}}").build(),
+                        emitter);
+
+    Assert.assertEquals(1, emitter.getEmitted().size());
+    StructuredRecord record = emitter.getEmitted().get(0);
+    Assert.assertEquals("Sayings of the Century", record.get("first_title"));
+    Assert.assertEquals("0-395-19395-8", record.get("last_isbn"));
+    Assert.assertEquals(Arrays.asList("Nigel Rees", "Evelyn Waugh", "Herman Melville", "J. R. R. Tolkien"),
+                        record.get("authors"));
+    Assert.assertNull(record.get("missing_title"));
+    Assert.assertEquals(json, record.get("body"));
+  }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for {@link SimpleJsonPath}.
+ */
+public class SimpleJsonPathTest {
+
+  @Test
+  public void testParse() {
+    for (String path : new String[] {"$", "$.a", "$.a.b[0]", "$['a']['b'][12].c", "$[\"a b\"]", " $.a "}) {
+      Assert.assertNotNull(path, SimpleJsonPath.parse(path));
+    }
+    for (String path : new String[] {"a.b", "@.a", "$..a", "$.a.*", "$.a[*]", "$.a[-1]", "$.a[0:2]", "$.a[0,1]",
+      "$['a','b']", "$.a[?(@.b)]", "$.a.length()", "$.", "$.a[", "$a", "$['a\\'b']", "$.a[99999999999]"}) {
+      Assert.assertNull(path, SimpleJsonPath.parse(path));
+    }
+  }
+
+  @Test
+  public void testRead() {
+    Map<String, Object> book = new HashMap<>();
+    book.put("title", "Moby Dick");
+    book.put("isbn", null);
+    Map<String, Object> store = new HashMap<>();
+    store.put("book", Arrays.asList(Collections.emptyMap(), book));
+    store.put("name", "shop");
+    Map<String, Object> document = Collections.singletonMap("store", store);
+
+    Assert.assertSame(document, SimpleJsonPath.parse("$").read(document));
+    Assert.assertEquals("Moby Dick", SimpleJsonPath.parse("$.store.book[1].title").read(document));
+    Assert.assertEquals("Moby Dick", SimpleJsonPath.parse("$['store'][\"book\"][1]['title']").read(document));
+    Assert.assertNull(SimpleJsonPath.parse("$.store.book[1].isbn").read(document));
+
+    for (String path : new String[] {"$.shop", "$.store.book[2]", "$.store.book[0].title", "$.store.book.title",
+      "$.store.name[0]", "$.store.name.length", "$[0]"}) {
+      Assert.assertSame(path, SimpleJsonPath.NOT_FOUND, SimpleJsonPath.parse(path).read(document));
+    }
+  }
+}
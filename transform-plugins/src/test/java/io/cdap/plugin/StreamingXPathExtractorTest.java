@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2024 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Tests for {@link StreamingXPathExtractor} and {@link SimpleXPath}.
+ */
+public class StreamingXPathExtractorTest {
+  private static final String BOOKS = "<?xml version=\"1.0\"?><!-- books --><bookstore name=\"corner\">" +
+    "<book category=\"cooking\" id=\"1\"><title lang=\"en\">Everyday <![CDATA[Italian]]></title>" +
+    "<author>Giada &amp; <!-- co -->friends</author><year>2005</year><price/></book>" +
+    "<book category=\"web\" x:id=\"2\" xmlns:x=\"urn:x\"><title>Learning XML</title><x:year>2003</x:year>" +
+    "<notes>first<em>second</em></notes><?pi data?></book></bookstore>";
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @Test
+  public void testParse() {
+    for (String path : new String[] {"/a", "/a/b-c/d.e", "/a/@b", " /a/_b/@c "}) {
+      Assert.assertNotNull(path, SimpleXPath.parse(path));
+    }
+    for (String path : new String[] {"a/b", "//a", "/a//b", "/", "/a/", "/@a", "/a/*", "/a/b[1]", "/a/text()",
+      "/a/../b", "/a/@b/c", "/a/x:b", "/a/@*", "/1a"}) {
+      Assert.assertNull(path, SimpleXPath.parse(path));
+    }
+  }
+
+  @Test
+  public void testSameValuesAsDom() throws Exception {
+    List<String> paths = Arrays.asList("/bookstore/@name", "/bookstore/book/title", "/bookstore/book/author",
+                                       "/bookstore/book/year", "/bookstore/book/price", "/bookstore/book/@id",
+                                       "/bookstore/book/@category", "/bookstore/missing", "/bookstore/book/@missing",
+                                       "/book/title");
+    String[] values = createExtractor(paths, false).extract(new StringReader(BOOKS));
+    Assert.assertArrayEquals(evaluateOnDom(paths, BOOKS).toArray(), values);
+    Assert.assertEquals("Everyday Italian", values[1]);
+    Assert.assertEquals("Giada & friends", values[2]);
+    Assert.assertEquals("", values[4]);
+  }
+
+  @Test
+  public void testChildElements() throws Exception {
+    StreamingXPathExtractor extractor = createExtractor(Arrays.asList("/bookstore/book/notes"), false);
+    try {
+      extractor.extract(new StringReader(BOOKS));
+      Assert.fail("Elements with child elements must not be extracted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    // only the first two child nodes decide whether the value is the markup, like on a DOM
+    List<String> paths = Arrays.asList("/a/b");
+    String xml = "<a><b>one<!--c-->two<c>three</c></b></a>";
+    Assert.assertArrayEquals(evaluateOnDom(paths, xml).toArray(),
+                             createExtractor(paths, false).extract(new StringReader(xml)));
+  }
+
+  @Test
+  public void testArrays() throws Exception {
+    List<String> paths = Arrays.asList("/bookstore/book/title");
+    Assert.assertEquals("Everyday Italian", createExtractor(paths, false).extract(new StringReader(BOOKS))[0]);
+    try {
+      createExtractor(paths, true).extract(new StringReader(BOOKS));
+      Assert.fail("Paths that select more than one node must fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    // the extractor is reused for every document
+    StreamingXPathExtractor extractor = createExtractor(Arrays.asList("/a/b", "/a/@c"), true);
+    Assert.assertArrayEquals(new String[] {"1", "2"}, extractor.extract(new StringReader("<a c=\"2\"><b>1</b></a>")));
+    Assert.assertArrayEquals(new String[] {null, "3"}, extractor.extract(new StringReader("<a c=\"3\"/>")));
+  }
+
+  @Test
+  public void testExternalResources() throws Exception {
+    File entity = tmpFolder.newFile("entity.txt");
+    Files.write(entity.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+    File dtd = tmpFolder.newFile("external.dtd");
+    Files.write(dtd.toPath(), "<!ENTITY d \"fromdtd\">".getBytes(StandardCharsets.UTF_8));
+    String xml = String.format("<!DOCTYPE a SYSTEM \"%s\" [<!ENTITY e SYSTEM \"%s\">]><a><b>&e;</b><c>&d;</c></a>",
+                               dtd.toURI(), entity.toURI());
+    List<String> paths = Arrays.asList("/a/b", "/a/c");
+    List<SimpleXPath> simplePaths = Arrays.asList(SimpleXPath.parse("/a/b"), SimpleXPath.parse("/a/c"));
+
+    // neither the external DTD nor the external entity are read by default
+    XMLInputFactory inputFactory = XMLInputFactories.create(false, false, false, false);
+    String[] values = new StreamingXPathExtractor(inputFactory, paths, simplePaths, false, false)
+      .extract(new StringReader(xml));
+    Assert.assertFalse(values[0] != null && values[0].contains("secret"));
+    Assert.assertFalse(values[1] != null && values[1].contains("fromdtd"));
+
+    // StAX cannot read only external general entities, so they are not read unless parameter entities are too
+    inputFactory = XMLInputFactories.create(false, true, false, false);
+    values = new StreamingXPathExtractor(inputFactory, paths, simplePaths, false, false)
+      .extract(new StringReader(xml));
+    Assert.assertFalse(values[0] != null && values[0].contains("secret"));
+
+    inputFactory = XMLInputFactories.create(false, true, true, true);
+    values = new StreamingXPathExtractor(inputFactory, paths, simplePaths, false, false)
+      .extract(new StringReader(xml));
+    Assert.assertArrayEquals(new String[] {"secret", "fromdtd"}, values);
+  }
+
+  @Test
+  public void testDisallowDocType() throws Exception {
+    String xml = "<!DOCTYPE a [<!ENTITY e \"entity\">]><a><b>&e;</b></a>";
+    List<String> paths = Arrays.asList("/a/b");
+    List<SimpleXPath> simplePaths = Arrays.asList(SimpleXPath.parse("/a/b"));
+
+    XMLInputFactory inputFactory = XMLInputFactories.create(true, false, false, false);
+    StreamingXPathExtractor extractor = new StreamingXPathExtractor(inputFactory, paths, simplePaths, false, true);
+    try {
+      extractor.extract(new StringReader(xml));
+      Assert.fail("Documents with a DOCTYPE declaration must be rejected");
+    } catch (XMLStreamException e) {
+      // expected
+    }
+    Assert.assertArrayEquals(new String[] {"value"}, extractor.extract(new StringReader("<a><b>value</b></a>")));
+
+    inputFactory = XMLInputFactories.create(false, false, false, false);
+    Assert.assertArrayEquals(new String[] {"entity"},
+                             new StreamingXPathExtractor(inputFactory, paths, simplePaths, false, false)
+                               .extract(new StringReader(xml)));
+  }
+
+  private static StreamingXPathExtractor createExtractor(List<String> paths, boolean failOnArray) {
+    List<SimpleXPath> simplePaths = new ArrayList<>();
+    for (String path : paths) {
+      simplePaths.add(SimpleXPath.parse(path));
+    }
+    return new StreamingXPathExtractor(XMLInputFactory.newInstance(), paths, simplePaths, failOnArray, false);
+  }
+
+  private static List<String> evaluateOnDom(List<String> paths, String xml) throws Exception {
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+      .parse(new InputSource(new StringReader(xml)));
+    List<String> values = new ArrayList<>();
+    for (String path : paths) {
+      NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(path, document,
+                                                                                 XPathConstants.NODESET);
+      values.add(nodes.getLength() == 0 ? null : nodes.item(0).getTextContent());
+    }
+    return values;
+  }
+}
@@ -19,18 +19,23 @@ package io.cdap.plugin;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.lib.KeyValueTable;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.datapipeline.SmartWorkflow;
+import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.validation.CauseAttributes;
 import io.cdap.cdap.etl.api.validation.ValidationException;
 import io.cdap.cdap.etl.api.validation.ValidationFailure.Cause;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.MockSource;
+import io.cdap.cdap.etl.mock.common.MockEmitter;
+import io.cdap.cdap.etl.mock.common.MockLookupProvider;
 import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
+import io.cdap.cdap.etl.mock.transform.MockTransformContext;
 import io.cdap.cdap.etl.proto.v2.ETLBatchConfig;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 import io.cdap.cdap.etl.proto.v2.ETLStage;
@@ -45,9 +50,11 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -398,6 +405,61 @@ public class ValueMapperTest extends TransformPluginsTestBase {
     }
   }
 
+  @Test
+  public void testCacheSize() throws Exception {
+    final Map<String, String> table = new HashMap<>();
+    table.put("1", "SE");
+    table.put("2", "SSE");
+    final List<String> reads = new ArrayList<>();
+    Lookup<String> lookup = new Lookup<String>() {
+      @Override
+      public String lookup(String key) {
+        reads.add(key);
+        return table.get(key);
+      }
+
+      @Override
+      public Map<String, String> lookup(String... keys) {
+        return lookup(ImmutableSet.copyOf(keys));
+      }
+
+      @Override
+      public Map<String, String> lookup(Set<String> keys) {
+        Map<String, String> result = new HashMap<>();
+        for (String key : keys) {
+          reads.add(key);
+          if (table.containsKey(key)) {
+            result.put(key, table.get(key));
+          }
+        }
+        return result;
+      }
+    };
+
+    ValueMapper.Config config = new ValueMapper.Config("designationid:designation_lookup_table:designationName",
+                                                       "designationid:DEFAULTID", 10);
+    ValueMapper mapper = new ValueMapper(config);
+    mapper.initialize(new MockTransformContext(MOCK_STAGE, new HashMap<String, String>(),
+                                               new MockLookupProvider(lookup)));
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    String[] designations = { "1", "2", "1", "4", "2", "4", "1" };
+    for (int i = 0; i < designations.length; i++) {
+      mapper.transform(StructuredRecord.builder(SOURCE_SCHEMA).set(ID, String.valueOf(i)).set(NAME, "John")
+                         .set(SALARY, "1000").set(DESIGNATIONID, designations[i]).build(), emitter);
+      // values in memory are mapped without reading the table again
+      table.put("1", "Staff");
+    }
+
+    List<String> mapped = new ArrayList<>();
+    for (StructuredRecord record : emitter.getEmitted()) {
+      mapped.add(record.<String>get(DESIGNATIONNAME));
+    }
+    Assert.assertEquals(ImmutableList.of("SE", "SSE", "SE", "DEFAULTID", "SSE", "DEFAULTID", "SE"), mapped);
+    // each distinct value, including the absent one, is read once
+    Assert.assertEquals(ImmutableList.of("1", "2", "4"), reads);
+  }
+
   @Test
   public void testMappingDoesNotExistInInput() throws Exception {
     Schema inputSchema = Schema.recordOf("sourceRecord",
@@ -96,4 +96,80 @@ public class XMLMultiParserTest {
     Assert.assertEquals(31, invalidEntry.getErrorCode());
     Assert.assertEquals(input, invalidEntry.getInvalidRecord());
   }
+
+  @Test
+  public void testStreamingMode() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+                                    Schema.Field.of("desc", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(),
+                                                             false, false, false, true, "streaming");
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body",
+           "<items>" +
+             "<item><id>0</id><name>Burrito</name><price>7.77</price><desc>very <b>delicious</b></desc></item>" +
+             "<!-- nested items are not records --><group><item><id>50</id></item></group>" +
+             "<item><id>100</id><name><![CDATA[Tortilla Chips]]></name><price>0.99</price><size>L</size></item>" +
+             "<item><id>150</id><name>Salsa</name><price>free</price></item>" +
+             "<item><id>200</id><name>Water</name><price>2.99</price></item>" +
+             "</items>")
+      .build();
+
+    XMLMultiParser parser = new XMLMultiParser(config);
+    parser.initialize(new MockTransformContext("stage"));
+    parser.transform(input, emitter);
+
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(schema)
+        .set("id", 0L).set("name", "Burrito").set("price", 7.77d).set("desc", "very delicious").build(),
+      StructuredRecord.builder(schema).set("id", 100L).set("name", "Tortilla Chips").set("price", 0.99d).build(),
+      StructuredRecord.builder(schema).set("id", 200L).set("name", "Water").set("price", 2.99d).build()
+    );
+    Assert.assertEquals(expected, emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+
+    // records before a parse error are emitted
+    emitter.clear();
+    input = StructuredRecord.builder(inputSchema)
+      .set("body", "<items><item><id>0</id><name>Burrito</name><price>7.77</price></item><item><id>100</id>")
+      .build();
+    parser.transform(input, emitter);
+    Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(schema)
+                                           .set("id", 0L).set("name", "Burrito").set("price", 7.77d).build()),
+                        emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(input, emitter.getErrors().get(0).getInvalidRecord());
+  }
+
+  @Test
+  public void testStreamingModeDisallowDocType() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body", "<!DOCTYPE items [<!ENTITY one \"1\">]><items><item><id>&one;</id></item></items>")
+      .build();
+
+    for (boolean disallowDocType : new boolean[] {true, false}) {
+      XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(),
+                                                               false, false, false, disallowDocType, "streaming");
+      XMLMultiParser parser = new XMLMultiParser(config);
+      parser.initialize(new MockTransformContext("stage"));
+      MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+      parser.transform(input, emitter);
+
+      if (disallowDocType) {
+        // documents with a DOCTYPE declaration are rejected, like in dom mode
+        Assert.assertTrue(emitter.getEmitted().isEmpty());
+        Assert.assertEquals(1, emitter.getErrors().size());
+      } else {
+        Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(schema).set("id", 1L).build()),
+                            emitter.getEmitted());
+      }
+    }
+  }
 }
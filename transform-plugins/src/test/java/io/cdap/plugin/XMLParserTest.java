@@ -280,4 +280,77 @@ public class XMLParserTest {
     expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, XMLParser.Config.INPUT);
     Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
   }
+
+  @Test
+  public void testStreamingMode() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("category", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("title", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("year", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+                                    Schema.Field.of("isbn", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    XMLParser.Config config = new XMLParser.Config(
+      "body", "UTF-8",
+      "category:/bookstore/book/@category,title:/bookstore/book/title,year:/bookstore/book/year," +
+        "isbn:/bookstore/book/isbn",
+      "category:string,title:string,year:int,isbn:string",
+      "Write to error dataset", false, false, false, true, XMLParser.Config.STREAMING_MODE);
+    Transform<StructuredRecord, StructuredRecord> transform = new XMLParser(config);
+    transform.initialize(new MockTransformContext());
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+
+    transform.transform(StructuredRecord.builder(INPUT).set("offset", 1)
+                          .set("body", "<bookstore><book category=\"cooking\"><title lang=\"en\">Everyday Italian" +
+                            "</title><year>2005</year></book><book category=\"web\"><title>Learning XML</title>" +
+                            "</book></bookstore>").build(), emitter);
+    transform.transform(StructuredRecord.builder(INPUT).set("offset", 2)
+                          .set("body", "<bookstore><book><title><b>Bold</b></title></book></bookstore>").build(),
+                        emitter);
+
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(schema).set("category", "cooking").set("title", "Everyday Italian")
+        .set("year", 2005).build());
+    Assert.assertEquals(expected, emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+  }
+
+  @Test
+  public void testStreamingModeDisallowDocType() throws Exception {
+    String body = "<!DOCTYPE book [<!ENTITY t \"Learning XML\">]><book><title>&t;</title></book>";
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("title", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    for (boolean disallowDocType : new boolean[] {true, false}) {
+      XMLParser.Config config = new XMLParser.Config(
+        "body", "UTF-8", "title:/book/title", "title:string", "Write to error dataset",
+        false, false, false, disallowDocType, XMLParser.Config.STREAMING_MODE);
+      Transform<StructuredRecord, StructuredRecord> transform = new XMLParser(config);
+      transform.initialize(new MockTransformContext());
+      MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+      transform.transform(StructuredRecord.builder(INPUT).set("offset", 1).set("body", body).build(), emitter);
+
+      if (disallowDocType) {
+        // documents with a DOCTYPE declaration are rejected, like in dom mode
+        Assert.assertTrue(emitter.getEmitted().isEmpty());
+        Assert.assertEquals(1, emitter.getErrors().size());
+      } else {
+        Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(schema).set("title", "Learning XML").build()),
+                            emitter.getEmitted());
+      }
+    }
+  }
+
+  @Test
+  public void testStreamingModeUnsupportedXPath() throws Exception {
+    XMLParser.Config config = new XMLParser.Config(
+      "body", "UTF-8", "title:/book/title,year://book/year", "title:string,year:int", "Exit on error",
+      false, false, false, true, XMLParser.Config.STREAMING_MODE);
+    MockPipelineConfigurer configurer = new MockPipelineConfigurer(INPUT);
+    new XMLParser(config).configurePipeline(configurer);
+    FailureCollector collector = configurer.getStageConfigurer().getFailureCollector();
+    Assert.assertEquals(1, collector.getValidationFailures().size());
+    Cause expectedCause = new Cause();
+    expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, "xPathMappings");
+    expectedCause.addAttribute(CauseAttributes.CONFIG_ELEMENT, "year://book/year");
+    Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
+  }
 }
@@ -25,6 +25,7 @@ import io.cdap.cdap.etl.api.validation.CauseAttributes;
 import io.cdap.cdap.etl.api.validation.ValidationFailure.Cause;
 import io.cdap.cdap.etl.mock.common.MockEmitter;
 import io.cdap.cdap.etl.mock.common.MockPipelineConfigurer;
+import org.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -92,6 +93,71 @@ public class XMLToJSONConverterTest {
     }
   }
 
+  @Test
+  public void testStreamingMode() throws Exception {
+    Assert.assertEquals("{\"CATALOG\":{\"PLANT\":[" +
+                          "{\"COMMON\":\"Bloodroot\",\"BOTANICAL\":\"Sanguinaria canadensis\",\"ZONE\":4}," +
+                          "{\"COMMON\":\"Columbine\",\"BOTANICAL\":\"Aquilegia canadensis\",\"ZONE\":3}]}}",
+                        convert("streaming",
+                                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                                  "<CATALOG>" +
+                                  "  <PLANT>" +
+                                  "    <COMMON>Bloodroot</COMMON>" +
+                                  "    <BOTANICAL>Sanguinaria canadensis</BOTANICAL>" +
+                                  "    <ZONE>4</ZONE>" +
+                                  "  </PLANT>" +
+                                  "  <PLANT>" +
+                                  "    <COMMON>Columbine</COMMON>" +
+                                  "    <BOTANICAL>Aquilegia canadensis</BOTANICAL>" +
+                                  "    <ZONE>3</ZONE>" +
+                                  "  </PLANT>" +
+                                  "</CATALOG>"));
+
+    // same JSON as the tree conversion, including documents that are converted through the tree
+    String[] documents = {
+      "<order id=\"7\" paid=\"TRUE\"><!-- note --><item>a &amp; b</item><item>2.50</item><item/>" +
+        "<total>12</total><comment>null</comment><p:tag xmlns:p=\"urn:p\" p:rank=\"1\">first</p:tag></order>",
+      "<a><b><c>1</c><c>2</c></b><b>3</b><d x=\"y\">text</d></a>",
+      "<a>text<b>1</b>more</a>",
+      "<a><b>1</b><c/><b>2</b></a>",
+      "<a><![CDATA[ <raw> ]]><b>&#65;</b></a>"
+    };
+    for (String document : documents) {
+      Assert.assertTrue(document, new JSONObject(convert("tree", document))
+        .similar(new JSONObject(convert("streaming", document))));
+    }
+
+    try {
+      convert("streaming", "<CATALOG><PLANT></CATALOG>");
+      Assert.fail();
+    } catch (Exception e) {
+      Assert.assertTrue(e.getMessage().contains("Failed to convert XML to JSON"));
+    }
+  }
+
+  @Test
+  public void testInvalidConversionMode() {
+    XMLToJSON.Config config = new XMLToJSON.Config("body", "jsonevent", OUTPUT.toString(), "dom");
+    PipelineConfigurer configurer = new MockPipelineConfigurer(INPUT);
+    FailureCollector collector = configurer.getStageConfigurer().getFailureCollector();
+
+    new XMLToJSON(config).configurePipeline(configurer);
+
+    Assert.assertEquals(1, collector.getValidationFailures().size());
+    Cause expectedCause = new Cause();
+    expectedCause.addAttribute(CauseAttributes.STAGE_CONFIG, "conversionMode");
+    Assert.assertEquals(expectedCause, collector.getValidationFailures().get(0).getCauses().get(0));
+  }
+
+  private static String convert(String conversionMode, String xml) throws Exception {
+    XMLToJSON.Config config = new XMLToJSON.Config("body", "jsonevent", OUTPUT.toString(), conversionMode);
+    Transform<StructuredRecord, StructuredRecord> transform = new XMLToJSON(config);
+    transform.initialize(null);
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT).set("body", xml).build(), emitter);
+    return emitter.getEmitted().get(0).get("jsonevent");
+  }
+
   @Test
   public void testInvalidInputField() throws Exception {
     XMLToJSON.Config config = new XMLToJSON.Config("does_not_exist", "jsonevent", OUTPUT.toString());